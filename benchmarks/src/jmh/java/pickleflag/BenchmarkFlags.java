@@ -0,0 +1,60 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Shared fixtures for the JMH benchmarks
+ */
+package pickleflag;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Builds registries populated the same way for every benchmark.
+ *
+ * Flags are spread uniformly over a fixed WORLD_CHUNKS x WORLD_CHUNKS area,
+ * so larger flag counts mean denser maps, as on a long-running server.
+ * Everything is seeded, so runs are comparable.
+ */
+final class BenchmarkFlags {
+
+    // Width of the populated area, in chunks (256 chunks = 8192 blocks)
+    static final int WORLD_CHUNKS = 256;
+
+    // View radius used by the map benchmarks (squared, in chunks)
+    static final int VIEW_RADIUS_SQUARED = 64;
+
+    static final String WORLD_NAME = "benchmark";
+
+    private BenchmarkFlags() {
+    }
+
+    /**
+     * Create a manager with one world holding the given number of flags.
+     * The flags get handles 0 to flagCount - 1.
+     */
+    static FlagManager populate(int flagCount, long seed) {
+        FlagManager flagManager = new FlagManager();
+        FlagRegistry registry = flagManager.getRegistry(WORLD_NAME);
+        Random random = new Random(seed);
+        for (int i = 0; i < flagCount; i++) {
+            int handle = flagManager.getFlagIds().intern(new UUID(random.nextLong(), random.nextLong()));
+            registry.addFlag(handle, "Flag " + i, randomBlock(random), 64 + random.nextInt(64), randomBlock(random));
+        }
+        registry.snapshot();
+        return flagManager;
+    }
+
+    /**
+     * Random block coordinate inside the populated area.
+     */
+    static int randomBlock(Random random) {
+        return random.nextInt(WORLD_CHUNKS << FlagSpatialIndex.CHUNK_BITS)
+            - (WORLD_CHUNKS << (FlagSpatialIndex.CHUNK_BITS - 1));
+    }
+
+    /**
+     * Random chunk coordinate inside the populated area.
+     */
+    static int randomChunk(Random random) {
+        return random.nextInt(WORLD_CHUNKS) - WORLD_CHUNKS / 2;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * JMH benchmarks for the PlayerFlagData and PickleFlagBlock codecs
+ */
+package pickleflag;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Cost of saving and loading player discoveries and flag blocks.
+ *
+ * PlayerFlagData is measured in both saved forms: the compact bitset over
+ * the ordinal table and the legacy UUID string array (still read for
+ * migration and written when the table is unavailable). The player has
+ * discovered one flag in four out of flagCount.
+ *
+ * PickleFlagBlock goes through its real CODEC definition, run by the
+ * stand-in BuilderCodec, so only the plugin's getters and setters are timed.
+ */
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int flagCount;
+
+    private Path directory;
+    private FlagIds flagIds;
+    private PlayerFlagData playerData;
+    private long[] savedBits;
+    private String[] savedIds;
+    private Map<String, Object> savedBlock;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("pickleflag-bench");
+        this.flagIds = new FlagIds();
+        this.flagIds.load(this.directory.resolve("flag_ids.bin"));
+
+        Random random = new Random(3L);
+        this.playerData = new PlayerFlagData();
+        for (int i = 0; i < this.flagCount; i++) {
+            int handle = this.flagIds.intern(new UUID(random.nextLong(), random.nextLong()));
+            if ((i & 3) == 0) {
+                this.playerData.addDiscoveredFlag(handle);
+            }
+        }
+        this.savedBits = PlayerFlagData.toSavedBits(this.playerData, this.flagIds);
+        this.savedIds = PlayerFlagData.toSavedIds(this.playerData, this.flagIds);
+
+        PickleFlagBlock block = new PickleFlagBlock();
+        block.getFlagUniqueId();
+        block.setFlagName("Benchmark Flag");
+        this.savedBlock = PickleFlagBlock.CODEC.encode(block);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.flagIds.close();
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public long[] encodeCompact() {
+        return PlayerFlagData.toSavedBits(this.playerData, this.flagIds);
+    }
+
+    @Benchmark
+    public PlayerFlagData decodeCompact() {
+        PlayerFlagData data = new PlayerFlagData();
+        PlayerFlagData.readSavedBits(data, this.savedBits, this.flagIds);
+        return data;
+    }
+
+    @Benchmark
+    public String[] encodeLegacy() {
+        return PlayerFlagData.toSavedIds(this.playerData, this.flagIds);
+    }
+
+    @Benchmark
+    public PlayerFlagData decodeLegacy() {
+        PlayerFlagData data = new PlayerFlagData();
+        PlayerFlagData.readSavedIds(data, this.savedIds, this.flagIds);
+        return data;
+    }
+
+    /**
+     * Component clone, as done by the server when saving a player.
+     */
+    @Benchmark
+    public PlayerFlagData clonePlayerData() {
+        return this.playerData.clone();
+    }
+
+    @Benchmark
+    public Map<String, Object> roundTripFlagBlock() {
+        return PickleFlagBlock.CODEC.encode(PickleFlagBlock.CODEC.decode(this.savedBlock));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * JMH benchmarks for registry writes, snapshots and range queries
+ */
+package pickleflag;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+
+/**
+ * Cost of FlagRegistry operations as the number of flags in a world grows.
+ *
+ * Writes run against existing flags (move, rename, remove and re-add), so
+ * the registry size stays at flagCount for the whole run.
+ */
+@State(Scope.Benchmark)
+public class FlagRegistryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int flagCount;
+
+    private FlagRegistry registry;
+    private Random random;
+
+    // Alternates so every write really changes the flag
+    private int step;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.registry = BenchmarkFlags.populate(this.flagCount, 42L).getRegistry(BenchmarkFlags.WORLD_NAME);
+        this.random = new Random(7L);
+    }
+
+    /**
+     * Move one flag; publishes a Moved event and bumps the version.
+     */
+    @Benchmark
+    public void moveFlag() {
+        int handle = this.random.nextInt(this.flagCount);
+        FlagManager.FlagData flag = this.registry.getFlag(handle);
+        this.registry.moveFlag(handle, flag.x(), flag.y() + ((this.step++ & 1) == 0 ? 1 : -1), flag.z());
+    }
+
+    /**
+     * Remove one flag and register it again.
+     */
+    @Benchmark
+    public void removeAndAddFlag() {
+        int handle = this.random.nextInt(this.flagCount);
+        FlagManager.FlagData flag = this.registry.getFlag(handle);
+        this.registry.removeFlag(handle);
+        this.registry.addFlag(handle, flag.name(), flag.x(), flag.y(), flag.z());
+    }
+
+    /**
+     * Snapshot with no change since the last one: the cached snapshot is returned.
+     */
+    @Benchmark
+    public FlagSnapshot cachedSnapshot() {
+        return this.registry.snapshot();
+    }
+
+    /**
+     * Rename one flag, then take a snapshot: the worst case for readers,
+     * who patch the flag list and spatial index after every change.
+     */
+    @Benchmark
+    public FlagSnapshot renameThenSnapshot() {
+        int handle = this.random.nextInt(this.flagCount);
+        this.registry.renameFlag(handle, (this.step++ & 1) == 0 ? "Renamed" : "Flag");
+        return this.registry.snapshot();
+    }
+
+    /**
+     * Visit the flags within a map view radius of a random chunk.
+     */
+    @Benchmark
+    public void chunkRadiusQuery(Blackhole blackhole) {
+        this.registry.forEachFlagInChunkRadius(
+            BenchmarkFlags.randomChunk(this.random), BenchmarkFlags.randomChunk(this.random),
+            BenchmarkFlags.VIEW_RADIUS_SQUARED, blackhole::consume);
+    }
+}
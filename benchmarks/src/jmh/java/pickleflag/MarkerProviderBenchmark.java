@@ -0,0 +1,103 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * JMH benchmarks for map marker updates across many players
+ */
+package pickleflag;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.WorldMapTracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Cost of one map refresh for every online player.
+ *
+ * One benchmark operation calls PickleFlagMarkerProvider.update once per
+ * player, so results are per server-wide refresh, not per player. The
+ * stand-in WorldMapTracker applies the server's radius test and keeps the
+ * sent markers, so marker construction is counted once per marker per player.
+ */
+@State(Scope.Benchmark)
+public class MarkerProviderBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int flagCount;
+
+    @Param({"10", "100", "500"})
+    public int playerCount;
+
+    private World world;
+    private FlagRegistry registry;
+    private PickleFlagMarkerProvider provider;
+    private WorldMapTracker[] trackers;
+    private int[] chunkX;
+    private int[] chunkZ;
+    private Random random;
+
+    // Alternates so every move and rename really changes something
+    private int step;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FlagManager flagManager = BenchmarkFlags.populate(this.flagCount, 42L);
+        this.world = new World(BenchmarkFlags.WORLD_NAME);
+        this.registry = flagManager.getRegistry(BenchmarkFlags.WORLD_NAME);
+        this.provider = new PickleFlagMarkerProvider(this.registry, flagManager.getMetrics());
+        flagManager.subscribe(this.provider::onFlagEvent);
+
+        this.random = new Random(11L);
+        this.trackers = new WorldMapTracker[this.playerCount];
+        this.chunkX = new int[this.playerCount];
+        this.chunkZ = new int[this.playerCount];
+        for (int i = 0; i < this.playerCount; i++) {
+            this.trackers[i] = new WorldMapTracker();
+            this.chunkX[i] = BenchmarkFlags.randomChunk(this.random);
+            this.chunkZ[i] = BenchmarkFlags.randomChunk(this.random);
+        }
+        this.updateAll();
+    }
+
+    /**
+     * Refresh with nothing changed: every player replays their cached markers.
+     */
+    @Benchmark
+    public void steadyRefresh() {
+        this.updateAll();
+    }
+
+    /**
+     * Every player crossed a chunk boundary since the last refresh.
+     */
+    @Benchmark
+    public void allPlayersMoved() {
+        int delta = (this.step++ & 1) == 0 ? 1 : -1;
+        for (int i = 0; i < this.playerCount; i++) {
+            this.chunkX[i] += delta;
+        }
+        this.updateAll();
+    }
+
+    /**
+     * One flag was renamed since the last refresh, invalidating every player's view.
+     */
+    @Benchmark
+    public void refreshAfterRename() {
+        int handle = this.random.nextInt(this.flagCount);
+        this.registry.renameFlag(handle, (this.step++ & 1) == 0 ? "Renamed" : "Flag");
+        this.updateAll();
+    }
+
+    private void updateAll() {
+        for (int i = 0; i < this.playerCount; i++) {
+            this.provider.update(this.world, null, this.trackers[i],
+                BenchmarkFlags.VIEW_RADIUS_SQUARED, this.chunkX[i], this.chunkZ[i]);
+        }
+    }
+}
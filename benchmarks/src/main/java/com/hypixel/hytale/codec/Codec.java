@@ -0,0 +1,25 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the server codec type
+ */
+package com.hypixel.hytale.codec;
+
+import java.util.UUID;
+
+/**
+ * Marker for a field type. The stand-in BuilderCodec keeps field values as
+ * plain Java objects, so the primitive codecs carry no behaviour.
+ */
+public interface Codec<T> {
+
+    Codec<String> STRING = new Codec<>() { };
+    Codec<Float> FLOAT = new Codec<>() { };
+    Codec<Integer> INTEGER = new Codec<>() { };
+    Codec<Long> LONG = new Codec<>() { };
+    Codec<Boolean> BOOLEAN = new Codec<>() { };
+    Codec<UUID> UUID_BINARY = new Codec<>() { };
+    Codec<String[]> STRING_ARRAY = new Codec<>() { };
+    Codec<long[]> LONG_ARRAY = new Codec<>() { };
+    Codec<int[]> INT_ARRAY = new Codec<>() { };
+    Codec<byte[]> BYTE_ARRAY = new Codec<>() { };
+}
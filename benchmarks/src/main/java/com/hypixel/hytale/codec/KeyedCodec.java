@@ -0,0 +1,37 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for a named codec field
+ */
+package com.hypixel.hytale.codec;
+
+/**
+ * A field key paired with its value codec.
+ */
+public class KeyedCodec<T> {
+
+    private final String key;
+    private final Codec<T> codec;
+    private final boolean required;
+
+    public KeyedCodec(String key, Codec<T> codec) {
+        this(key, codec, false);
+    }
+
+    public KeyedCodec(String key, Codec<T> codec, boolean required) {
+        this.key = key;
+        this.codec = codec;
+        this.required = required;
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    public Codec<T> getCodec() {
+        return this.codec;
+    }
+
+    public boolean isRequired() {
+        return this.required;
+    }
+}
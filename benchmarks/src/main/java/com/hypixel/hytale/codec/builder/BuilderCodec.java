@@ -0,0 +1,113 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the server's builder codec
+ */
+package com.hypixel.hytale.codec.builder;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Builder codec that encodes to and decodes from a map of field values.
+ *
+ * It runs every getter and setter the real codec would, so benchmarks
+ * measure the plugin's conversion work (e.g. bitset to saved form). The
+ * cost of the server's own BSON encoding is not included.
+ */
+public class BuilderCodec<T> implements Codec<T> {
+
+    private final Supplier<T> constructor;
+    private final List<FieldCodec<T, ?>> fields;
+
+    private BuilderCodec(Supplier<T> constructor, List<FieldCodec<T, ?>> fields) {
+        this.constructor = constructor;
+        this.fields = fields;
+    }
+
+    public static <T> Builder<T> builder(Class<T> type, Supplier<T> constructor) {
+        return new Builder<>(constructor);
+    }
+
+    /**
+     * Encode a value by calling every field getter. Null values are omitted.
+     */
+    public Map<String, Object> encode(T value) {
+        Map<String, Object> encoded = new LinkedHashMap<>();
+        for (FieldCodec<T, ?> field : this.fields) {
+            Object fieldValue = field.getter.apply(value);
+            if (fieldValue != null) {
+                encoded.put(field.key.getKey(), fieldValue);
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Decode a value by calling the setter of every field present.
+     */
+    public T decode(Map<String, Object> encoded) {
+        T value = this.constructor.get();
+        for (FieldCodec<T, ?> field : this.fields) {
+            Object fieldValue = encoded.get(field.key.getKey());
+            if (fieldValue != null) {
+                field.set(value, fieldValue);
+            }
+        }
+        return value;
+    }
+
+    public static class Builder<T> {
+
+        private final Supplier<T> constructor;
+        private final List<FieldCodec<T, ?>> fields = new ArrayList<>();
+
+        private Builder(Supplier<T> constructor) {
+            this.constructor = constructor;
+        }
+
+        public <F> Field<T, F> append(KeyedCodec<F> key, BiConsumer<T, F> setter, Function<T, F> getter) {
+            return new Field<>(this, new FieldCodec<>(key, setter, getter));
+        }
+
+        public <F> Builder<T> addField(KeyedCodec<F> key, BiConsumer<T, F> setter, Function<T, F> getter) {
+            this.fields.add(new FieldCodec<>(key, setter, getter));
+            return this;
+        }
+
+        public BuilderCodec<T> build() {
+            return new BuilderCodec<>(this.constructor, List.copyOf(this.fields));
+        }
+    }
+
+    public static class Field<T, F> {
+
+        private final Builder<T> builder;
+        private final FieldCodec<T, F> field;
+
+        private Field(Builder<T> builder, FieldCodec<T, F> field) {
+            this.builder = builder;
+            this.field = field;
+        }
+
+        public Builder<T> add() {
+            this.builder.fields.add(this.field);
+            return this.builder;
+        }
+    }
+
+    private record FieldCodec<T, F>(KeyedCodec<F> key, BiConsumer<T, F> setter, Function<T, F> getter) {
+
+        @SuppressWarnings("unchecked")
+        void set(T value, Object fieldValue) {
+            this.setter.accept(value, (F) fieldValue);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for entity add reasons
+ */
+package com.hypixel.hytale.component;
+
+public enum AddReason {
+    SPAWN,
+    LOAD
+}
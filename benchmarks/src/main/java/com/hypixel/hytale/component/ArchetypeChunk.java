@@ -0,0 +1,30 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for a batch of entities handed to a ticking system
+ */
+package com.hypixel.hytale.component;
+
+import java.util.List;
+
+public class ArchetypeChunk<S> {
+
+    private final Store<S> store;
+    private final List<Ref<S>> refs;
+
+    ArchetypeChunk(Store<S> store, List<Ref<S>> refs) {
+        this.store = store;
+        this.refs = refs;
+    }
+
+    public <C extends Component<S>> C getComponent(int index, ComponentType<S, C> type) {
+        return this.store.getComponent(this.refs.get(index), type);
+    }
+
+    public Ref<S> getReferenceTo(int index) {
+        return this.refs.get(index);
+    }
+
+    public int size() {
+        return this.refs.size();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the deferred ECS command buffer
+ */
+package com.hypixel.hytale.component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads go straight to the store; structural work queued with run() is
+ * applied when the system that queued it returns.
+ */
+public class CommandBuffer<S> {
+
+    private final Store<S> store;
+    private final List<Consumer<Store<S>>> pending = new ArrayList<>();
+
+    CommandBuffer(Store<S> store) {
+        this.store = store;
+    }
+
+    public <C extends Component<S>> C getComponent(Ref<S> ref, ComponentType<S, C> type) {
+        return this.store.getComponent(ref, type);
+    }
+
+    public Object getExternalData() {
+        return this.store.getExternalData();
+    }
+
+    public <T extends Resource<S>> T getResource(ResourceType<S, T> type) {
+        return this.store.getResource(type);
+    }
+
+    public <C extends Component<S>> void putComponent(Ref<S> ref, ComponentType<S, C> type, C component) {
+        this.pending.add(store -> store.putComponent(ref, type, component));
+    }
+
+    public <C extends Component<S>> void addComponent(Ref<S> ref, ComponentType<S, C> type, C component) {
+        this.pending.add(store -> store.addComponent(ref, type, component));
+    }
+
+    public void run(Consumer<Store<S>> command) {
+        this.pending.add(command);
+    }
+
+    void flush() {
+        for (int i = 0; i < this.pending.size(); i++) {
+            this.pending.get(i).accept(this.store);
+        }
+        this.pending.clear();
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the ECS component interface
+ */
+package com.hypixel.hytale.component;
+
+public interface Component<S> extends Cloneable {
+
+    Component<S> clone();
+}
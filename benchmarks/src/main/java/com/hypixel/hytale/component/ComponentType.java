@@ -0,0 +1,20 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for an ECS component type
+ */
+package com.hypixel.hytale.component;
+
+import com.hypixel.hytale.component.query.Query;
+
+import java.util.Map;
+
+/**
+ * Identity of a component type. Also a query matching entities that have it.
+ */
+public class ComponentType<S, C extends Component<S>> implements Query<S> {
+
+    @Override
+    public boolean test(Map<ComponentType<S, ?>, Component<S>> components) {
+        return components.containsKey(this);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for an entity reference
+ */
+package com.hypixel.hytale.component;
+
+public class Ref<S> {
+
+    private final Store<S> store;
+    private final int index;
+    private boolean valid = true;
+
+    Ref(Store<S> store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    public boolean isValid() {
+        return this.valid;
+    }
+
+    public Store<S> getStore() {
+        return this.store;
+    }
+
+    public int getIndex() {
+        return this.index;
+    }
+
+    void invalidate() {
+        this.valid = false;
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for entity remove reasons
+ */
+package com.hypixel.hytale.component;
+
+public enum RemoveReason {
+    REMOVE,
+    UNLOAD
+}
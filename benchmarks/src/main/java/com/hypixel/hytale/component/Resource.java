@@ -0,0 +1,10 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for ECS resources
+ */
+package com.hypixel.hytale.component;
+
+public interface Resource<S> extends Cloneable {
+
+    Resource<S> clone();
+}
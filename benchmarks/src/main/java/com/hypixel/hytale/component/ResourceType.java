@@ -0,0 +1,8 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for ECS resource types
+ */
+package com.hypixel.hytale.component;
+
+public class ResourceType<S, T extends Resource<S>> {
+}
@@ -0,0 +1,164 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for an in-process ECS store
+ */
+package com.hypixel.hytale.component;
+
+import com.hypixel.hytale.component.system.ISystem;
+import com.hypixel.hytale.component.system.RefSystem;
+import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Minimal single-threaded ECS store.
+ *
+ * Entities are component maps. RefSystems run when an entity is added or
+ * removed; EntityTickingSystems run from tick() over the entities their
+ * query matched, kept in a per-system set so a tick does not scan the store.
+ * Entities removed during a tick are skipped; entities added during a tick
+ * are first ticked on the next one.
+ */
+public class Store<S> {
+
+    private final Object externalData;
+    // Components of each entity by Ref index (null once removed)
+    private final List<Map<ComponentType<S, ?>, Component<S>>> entities = new ArrayList<>();
+    private final Map<ResourceType<S, ?>, Resource<S>> resources = new HashMap<>();
+    private final List<RefSystem<S>> refSystems = new ArrayList<>();
+    private final List<EntityTickingSystem<S>> tickingSystems = new ArrayList<>();
+    private final List<Set<Ref<S>>> tickingMatches = new ArrayList<>();
+    private final List<List<Ref<S>>> tickingOrder = new ArrayList<>();
+    private final CommandBuffer<S> commandBuffer = new CommandBuffer<>(this);
+    private int entityCount;
+
+    public Store(Object externalData) {
+        this.externalData = externalData;
+    }
+
+    public Object getExternalData() {
+        return this.externalData;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void registerSystem(ISystem<S> system) {
+        if (system instanceof RefSystem<S> refSystem) {
+            this.refSystems.add(refSystem);
+        } else if (system instanceof EntityTickingSystem<S> tickingSystem) {
+            this.tickingSystems.add(tickingSystem);
+            this.tickingMatches.add(new LinkedHashSet<>());
+            this.tickingOrder.add(null);
+        }
+    }
+
+    public <T extends Resource<S>> void putResource(ResourceType<S, T> type, T resource) {
+        this.resources.put(type, resource);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Resource<S>> T getResource(ResourceType<S, T> type) {
+        return (T) this.resources.get(type);
+    }
+
+    /**
+     * Add an entity and run every RefSystem whose query it matches.
+     */
+    public Ref<S> addEntity(Map<ComponentType<S, ?>, Component<S>> components, AddReason reason) {
+        Ref<S> ref = new Ref<>(this, this.entities.size());
+        Map<ComponentType<S, ?>, Component<S>> stored = new HashMap<>(components);
+        this.entities.add(stored);
+        this.entityCount++;
+        this.updateMatches(ref, stored);
+        for (RefSystem<S> system : this.refSystems) {
+            if (system.getQuery().test(stored)) {
+                system.onEntityAdded(ref, reason, this, this.commandBuffer);
+                this.commandBuffer.flush();
+            }
+        }
+        return ref;
+    }
+
+    /**
+     * Run every matching RefSystem, then remove the entity.
+     */
+    public void removeEntity(Ref<S> ref, RemoveReason reason) {
+        Map<ComponentType<S, ?>, Component<S>> stored = this.getComponents(ref);
+        if (stored == null) {
+            return;
+        }
+        for (RefSystem<S> system : this.refSystems) {
+            if (system.getQuery().test(stored)) {
+                system.onEntityRemove(ref, reason, this, this.commandBuffer);
+                this.commandBuffer.flush();
+            }
+        }
+        this.entities.set(ref.getIndex(), null);
+        this.entityCount--;
+        for (int s = 0; s < this.tickingMatches.size(); s++) {
+            if (this.tickingMatches.get(s).remove(ref)) {
+                this.tickingOrder.set(s, null);
+            }
+        }
+        ref.invalidate();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <C extends Component<S>> C getComponent(Ref<S> ref, ComponentType<S, C> type) {
+        Map<ComponentType<S, ?>, Component<S>> stored = this.getComponents(ref);
+        return stored != null ? (C) stored.get(type) : null;
+    }
+
+    public <C extends Component<S>> void addComponent(Ref<S> ref, ComponentType<S, C> type, C component) {
+        this.putComponent(ref, type, component);
+    }
+
+    public <C extends Component<S>> void putComponent(Ref<S> ref, ComponentType<S, C> type, C component) {
+        Map<ComponentType<S, ?>, Component<S>> stored = this.getComponents(ref);
+        if (stored != null) {
+            stored.put(type, component);
+            this.updateMatches(ref, stored);
+        }
+    }
+
+    /**
+     * Run every ticking system once over the entities it matches.
+     */
+    public void tick(float dt) {
+        for (int s = 0; s < this.tickingSystems.size(); s++) {
+            EntityTickingSystem<S> system = this.tickingSystems.get(s);
+            List<Ref<S>> refs = this.tickingOrder.get(s);
+            if (refs == null) {
+                refs = List.copyOf(this.tickingMatches.get(s));
+                this.tickingOrder.set(s, refs);
+            }
+            ArchetypeChunk<S> chunk = new ArchetypeChunk<>(this, refs);
+            for (int i = 0; i < refs.size(); i++) {
+                if (refs.get(i).isValid()) {
+                    system.tick(dt, i, chunk, this, this.commandBuffer);
+                }
+            }
+            this.commandBuffer.flush();
+        }
+    }
+
+    public int getEntityCount() {
+        return this.entityCount;
+    }
+
+    private Map<ComponentType<S, ?>, Component<S>> getComponents(Ref<S> ref) {
+        return ref.getStore() == this && ref.isValid() ? this.entities.get(ref.getIndex()) : null;
+    }
+
+    private void updateMatches(Ref<S> ref, Map<ComponentType<S, ?>, Component<S>> stored) {
+        for (int s = 0; s < this.tickingSystems.size(); s++) {
+            if (this.tickingSystems.get(s).getQuery().test(stored) && this.tickingMatches.get(s).add(ref)) {
+                this.tickingOrder.set(s, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for ECS queries
+ */
+package com.hypixel.hytale.component.query;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+
+import java.util.Map;
+
+/**
+ * Entity filter over the set of component types an entity has.
+ */
+public interface Query<S> {
+
+    boolean test(Map<ComponentType<S, ?>, Component<S>> components);
+
+    @SafeVarargs
+    static <S> Query<S> and(Query<S>... queries) {
+        Query<S>[] all = queries.clone();
+        return components -> {
+            for (Query<S> query : all) {
+                if (!query.test(components)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+}
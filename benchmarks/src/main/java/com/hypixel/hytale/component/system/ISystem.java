@@ -0,0 +1,8 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for ECS systems
+ */
+package com.hypixel.hytale.component.system;
+
+public interface ISystem<S> {
+}
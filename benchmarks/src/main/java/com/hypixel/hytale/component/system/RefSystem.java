@@ -0,0 +1,22 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for entity add/remove systems
+ */
+package com.hypixel.hytale.component.system;
+
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+
+public abstract class RefSystem<S> implements ISystem<S> {
+
+    public abstract Query<S> getQuery();
+
+    public abstract void onEntityAdded(Ref<S> ref, AddReason reason, Store<S> store, CommandBuffer<S> commandBuffer);
+
+    public abstract void onEntityRemove(Ref<S> ref, RemoveReason reason, Store<S> store,
+                                        CommandBuffer<S> commandBuffer);
+}
@@ -0,0 +1,19 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for per-entity ticking systems
+ */
+package com.hypixel.hytale.component.system.tick;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.ISystem;
+
+public abstract class EntityTickingSystem<S> implements ISystem<S> {
+
+    public abstract Query<S> getQuery();
+
+    public abstract void tick(float dt, int index, ArchetypeChunk<S> archetypeChunk, Store<S> store,
+                              CommandBuffer<S> commandBuffer);
+}
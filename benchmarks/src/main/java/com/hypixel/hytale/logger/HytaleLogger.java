@@ -0,0 +1,56 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the server logger
+ */
+package com.hypixel.hytale.logger;
+
+/**
+ * Logger that discards everything, so benchmarks and simulations measure the plugin and not log output.
+ */
+public class HytaleLogger {
+
+    private static final HytaleLogger INSTANCE = new HytaleLogger();
+    private static final Api API = new Api();
+
+    public static HytaleLogger forEnclosingClass() {
+        return INSTANCE;
+    }
+
+    public Api atInfo() {
+        return API;
+    }
+
+    public Api atWarning() {
+        return API;
+    }
+
+    public Api atSevere() {
+        return API;
+    }
+
+    public Api atFine() {
+        return API;
+    }
+
+    public static class Api {
+
+        public Api withCause(Throwable cause) {
+            return this;
+        }
+
+        public void log(String message) {
+        }
+
+        public void log(String format, Object arg) {
+        }
+
+        public void log(String format, Object arg1, Object arg2) {
+        }
+
+        public void log(String format, Object arg1, Object arg2, Object arg3) {
+        }
+
+        public void log(String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for chunk coordinate helpers
+ */
+package com.hypixel.hytale.math.util;
+
+/**
+ * Chunk and block index math. Chunks are 32 blocks on each axis; a column
+ * index packs x, column y and z, a section index packs x, section y and z.
+ */
+public final class ChunkUtil {
+
+    private ChunkUtil() {
+    }
+
+    public static int indexBlockInColumn(int x, int y, int z) {
+        return (y << 10) | ((z & 31) << 5) | (x & 31);
+    }
+
+    public static int xFromBlockInColumn(int index) {
+        return index & 31;
+    }
+
+    public static int yFromBlockInColumn(int index) {
+        return index >>> 10;
+    }
+
+    public static int zFromBlockInColumn(int index) {
+        return (index >> 5) & 31;
+    }
+
+    public static int indexBlock(int x, int y, int z) {
+        return ((y & 31) << 10) | ((z & 31) << 5) | (x & 31);
+    }
+
+    public static int chunkCoordinate(int value) {
+        return value >> 5;
+    }
+
+    public static int chunkCoordinate(double value) {
+        return (int) Math.floor(value) >> 5;
+    }
+
+    public static int worldCoordFromLocalCoord(int chunk, int local) {
+        return (chunk << 5) | local;
+    }
+
+    public static long indexChunk(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    public static long indexChunkFromBlock(int x, int z) {
+        return indexChunk(x >> 5, z >> 5);
+    }
+
+    public static long indexChunkFromBlock(double x, double z) {
+        return indexChunk(chunkCoordinate(x), chunkCoordinate(z));
+    }
+
+    public static int xOfChunkIndex(long index) {
+        return (int) (index >> 32);
+    }
+
+    public static int zOfChunkIndex(long index) {
+        return (int) index;
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for a server-side transform
+ */
+package com.hypixel.hytale.math.vector;
+
+public class Transform {
+
+    private final Vector3d position;
+
+    public Transform(double x, double y, double z) {
+        this(new Vector3d(x, y, z));
+    }
+
+    public Transform(Vector3d position) {
+        this.position = position;
+    }
+
+    public Vector3d getPosition() {
+        return this.position;
+    }
+}
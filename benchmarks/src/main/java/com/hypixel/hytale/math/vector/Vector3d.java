@@ -0,0 +1,30 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for a double vector
+ */
+package com.hypixel.hytale.math.vector;
+
+public class Vector3d {
+
+    public double x;
+    public double y;
+    public double z;
+
+    public Vector3d(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public double getX() {
+        return this.x;
+    }
+
+    public double getY() {
+        return this.y;
+    }
+
+    public double getZ() {
+        return this.z;
+    }
+}
@@ -0,0 +1,12 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for a network transform
+ */
+package com.hypixel.hytale.protocol;
+
+public class Transform {
+
+    public double x;
+    public double y;
+    public double z;
+}
@@ -0,0 +1,9 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for page lifetimes
+ */
+package com.hypixel.hytale.protocol.packets.interface_;
+
+public enum CustomPageLifetime {
+    CanDismiss
+}
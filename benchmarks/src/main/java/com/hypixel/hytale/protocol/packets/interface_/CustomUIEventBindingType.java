@@ -0,0 +1,9 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for UI event bindings
+ */
+package com.hypixel.hytale.protocol.packets.interface_;
+
+public enum CustomUIEventBindingType {
+    Activating
+}
@@ -0,0 +1,16 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for a map marker context menu entry
+ */
+package com.hypixel.hytale.protocol.packets.worldmap;
+
+public class ContextMenuItem {
+
+    public String name;
+    public String command;
+
+    public ContextMenuItem(String name, String command) {
+        this.name = name;
+        this.command = command;
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for a map marker packet
+ */
+package com.hypixel.hytale.protocol.packets.worldmap;
+
+import com.hypixel.hytale.protocol.Transform;
+
+public class MapMarker {
+
+    public String id;
+    public String name;
+    public String markerImage;
+    public Transform transform;
+    public ContextMenuItem[] contextMenuItems;
+
+    public MapMarker(String id, String name, String markerImage, Transform transform,
+                     ContextMenuItem[] contextMenuItems) {
+        this.id = id;
+        this.name = name;
+        this.markerImage = markerImage;
+        this.transform = transform;
+        this.contextMenuItems = contextMenuItems;
+    }
+}
@@ -0,0 +1,12 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for block tick results
+ */
+package com.hypixel.hytale.server.core.asset.type.blocktick;
+
+public enum BlockTickStrategy {
+    IGNORED,
+    SLEEP,
+    CONTINUE,
+    WAIT_FOR_ADJACENT_CHUNK_LOAD
+}
@@ -0,0 +1,8 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for gameplay settings
+ */
+package com.hypixel.hytale.server.core.asset.type.gameplay;
+
+public class GameplayConfig {
+}
@@ -0,0 +1,58 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for commands
+ */
+package com.hypixel.hytale.server.core.command.system;
+
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgumentType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public abstract class AbstractCommand {
+
+    private final String name;
+    private final String description;
+    private final Map<String, AbstractCommand> subCommands = new LinkedHashMap<>();
+
+    public AbstractCommand(String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+
+    protected abstract CompletableFuture<Void> execute(CommandContext context);
+
+    protected <T> RequiredArg<T> withRequiredArg(String name, String description, ArgumentType type) {
+        return new RequiredArg<>(name, type);
+    }
+
+    protected <T> OptionalArg<T> withOptionalArg(String name, String description, ArgumentType type) {
+        return new OptionalArg<>(name, type);
+    }
+
+    public void addSubCommand(AbstractCommand command) {
+        this.subCommands.put(command.getName(), command);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getDescription() {
+        return this.description;
+    }
+
+    public AbstractCommand getSubCommand(String name) {
+        return this.subCommands.get(name);
+    }
+
+    /**
+     * Run this command as the server would after parsing its arguments.
+     */
+    public CompletableFuture<Void> invoke(CommandContext context) {
+        return this.execute(context);
+    }
+}
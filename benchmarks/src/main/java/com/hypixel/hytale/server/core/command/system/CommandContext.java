@@ -0,0 +1,42 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for a command invocation
+ */
+package com.hypixel.hytale.server.core.command.system;
+
+import com.hypixel.hytale.server.core.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sender, raw argument values and the replies sent back.
+ */
+public class CommandContext {
+
+    private final CommandSender sender;
+    private final Map<String, String> arguments;
+    private final List<Message> messages = new ArrayList<>();
+
+    public CommandContext(CommandSender sender, Map<String, String> arguments) {
+        this.sender = sender;
+        this.arguments = arguments;
+    }
+
+    public CommandSender sender() {
+        return this.sender;
+    }
+
+    public void sendMessage(Message message) {
+        this.messages.add(message);
+    }
+
+    public List<Message> getMessages() {
+        return this.messages;
+    }
+
+    public String getArgument(String name) {
+        return this.arguments.get(name);
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for command senders
+ */
+package com.hypixel.hytale.server.core.command.system;
+
+public interface CommandSender {
+
+    boolean hasPermission(String id);
+}
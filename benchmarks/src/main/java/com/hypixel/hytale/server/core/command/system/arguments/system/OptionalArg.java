@@ -0,0 +1,28 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for optional command arguments
+ */
+package com.hypixel.hytale.server.core.command.system.arguments.system;
+
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgumentType;
+
+public class OptionalArg<T> {
+
+    private final String name;
+    private final ArgumentType<T> type;
+
+    public OptionalArg(String name, ArgumentType<T> type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    public T get(CommandContext context) {
+        String value = context.getArgument(this.name);
+        return value != null ? this.type.parse(value) : null;
+    }
+
+    public boolean provided(CommandContext context) {
+        return context.getArgument(this.name) != null;
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for required command arguments
+ */
+package com.hypixel.hytale.server.core.command.system.arguments.system;
+
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgumentType;
+
+public class RequiredArg<T> {
+
+    private final String name;
+    private final ArgumentType<T> type;
+
+    public RequiredArg(String name, ArgumentType<T> type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    public T get(CommandContext context) {
+        return this.type.parse(context.getArgument(this.name));
+    }
+}
@@ -0,0 +1,14 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the built-in argument types
+ */
+package com.hypixel.hytale.server.core.command.system.arguments.types;
+
+public final class ArgTypes {
+
+    public static final ArgumentType<String> STRING = new ArgumentType<>(value -> value);
+    public static final ArgumentType<Integer> INTEGER = new ArgumentType<>(Integer::valueOf);
+
+    private ArgTypes() {
+    }
+}
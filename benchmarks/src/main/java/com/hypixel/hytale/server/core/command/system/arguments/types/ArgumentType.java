@@ -0,0 +1,20 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for command argument types
+ */
+package com.hypixel.hytale.server.core.command.system.arguments.types;
+
+import java.util.function.Function;
+
+public class ArgumentType<T> {
+
+    private final Function<String, T> parser;
+
+    public ArgumentType(Function<String, T> parser) {
+        this.parser = parser;
+    }
+
+    public T parse(String value) {
+        return this.parser.apply(value);
+    }
+}
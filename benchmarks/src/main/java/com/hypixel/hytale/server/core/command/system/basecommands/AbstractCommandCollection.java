@@ -0,0 +1,22 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for command collections
+ */
+package com.hypixel.hytale.server.core.command.system.basecommands;
+
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+
+import java.util.concurrent.CompletableFuture;
+
+public abstract class AbstractCommandCollection extends AbstractCommand {
+
+    public AbstractCommandCollection(String name, String description) {
+        super(name, description);
+    }
+
+    @Override
+    protected CompletableFuture<Void> execute(CommandContext context) {
+        return CompletableFuture.completedFuture(null);
+    }
+}
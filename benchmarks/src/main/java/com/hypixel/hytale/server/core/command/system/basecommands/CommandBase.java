@@ -0,0 +1,25 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for synchronous commands
+ */
+package com.hypixel.hytale.server.core.command.system.basecommands;
+
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+
+import java.util.concurrent.CompletableFuture;
+
+public abstract class CommandBase extends AbstractCommand {
+
+    public CommandBase(String name, String description) {
+        super(name, description);
+    }
+
+    protected abstract void executeSync(CommandContext context);
+
+    @Override
+    protected CompletableFuture<Void> execute(CommandContext context) {
+        this.executeSync(context);
+        return CompletableFuture.completedFuture(null);
+    }
+}
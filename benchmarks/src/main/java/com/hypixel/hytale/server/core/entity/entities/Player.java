@@ -0,0 +1,87 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the player component
+ */
+package com.hypixel.hytale.server.core.entity.entities;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.entity.entities.player.pages.PageManager;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Player in a world. Chat messages are counted rather than delivered.
+ * Every permission is granted unless it was denied with denyPermission().
+ */
+public class Player implements CommandSender, Component<EntityStore> {
+
+    private static final ComponentType<EntityStore, Player> TYPE = new ComponentType<>();
+
+    private final World world;
+    private final UUID uuid;
+    private final PageManager pageManager = new PageManager();
+    private final Set<String> deniedPermissions = new HashSet<>();
+    private Ref<EntityStore> reference;
+    private int messageCount;
+
+    public Player(World world, UUID uuid) {
+        this.world = world;
+        this.uuid = uuid;
+    }
+
+    public static ComponentType<EntityStore, Player> getComponentType() {
+        return TYPE;
+    }
+
+    public World getWorld() {
+        return this.world;
+    }
+
+    public UUID getUuid() {
+        return this.uuid;
+    }
+
+    public Ref<EntityStore> getReference() {
+        return this.reference;
+    }
+
+    public void setReference(Ref<EntityStore> reference) {
+        this.reference = reference;
+    }
+
+    public PageManager getPageManager() {
+        return this.pageManager;
+    }
+
+    public void sendMessage(Message message) {
+        this.messageCount++;
+    }
+
+    public int getMessageCount() {
+        return this.messageCount;
+    }
+
+    @Override
+    public boolean hasPermission(String id) {
+        return !this.deniedPermissions.contains(id);
+    }
+
+    public void denyPermission(String id) {
+        this.deniedPermissions.add(id);
+    }
+
+    @Override
+    public Player clone() {
+        Player copy = new Player(this.world, this.uuid);
+        copy.reference = this.reference;
+        return copy;
+    }
+}
@@ -0,0 +1,8 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for custom UI pages
+ */
+package com.hypixel.hytale.server.core.entity.entities.player.pages;
+
+public class CustomUIPage {
+}
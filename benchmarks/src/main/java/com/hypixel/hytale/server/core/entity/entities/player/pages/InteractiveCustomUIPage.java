@@ -0,0 +1,29 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for interactive UI pages
+ */
+package com.hypixel.hytale.server.core.entity.entities.player.pages;
+
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.protocol.packets.interface_.CustomPageLifetime;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+public abstract class InteractiveCustomUIPage<T> extends CustomUIPage {
+
+    public InteractiveCustomUIPage(PlayerRef playerRef, CustomPageLifetime lifetime, BuilderCodec<T> eventCodec) {
+    }
+
+    public abstract void build(Ref<EntityStore> ref, UICommandBuilder commandBuilder, UIEventBuilder eventBuilder,
+                               Store<EntityStore> store);
+
+    public void handleDataEvent(Ref<EntityStore> ref, Store<EntityStore> store, T data) {
+    }
+
+    protected void close() {
+    }
+}
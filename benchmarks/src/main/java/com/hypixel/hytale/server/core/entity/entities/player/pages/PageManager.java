@@ -0,0 +1,21 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for a player's page manager
+ */
+package com.hypixel.hytale.server.core.entity.entities.player.pages;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+
+public class PageManager {
+
+    private CustomUIPage openPage;
+
+    public void openCustomPage(Ref ref, Store store, CustomUIPage page) {
+        this.openPage = page;
+    }
+
+    public CustomUIPage getOpenPage() {
+        return this.openPage;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the block module
+ */
+package com.hypixel.hytale.server.core.modules.block;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+public class BlockModule {
+
+    /**
+     * Position of a block entity: its index in the chunk column and the column itself.
+     */
+    public static class BlockStateInfo implements Component<ChunkStore> {
+
+        private static final ComponentType<ChunkStore, BlockStateInfo> TYPE = new ComponentType<>();
+
+        private final int index;
+        private final Ref<ChunkStore> chunkRef;
+
+        public BlockStateInfo(int index, Ref<ChunkStore> chunkRef) {
+            this.index = index;
+            this.chunkRef = chunkRef;
+        }
+
+        public static ComponentType<ChunkStore, BlockStateInfo> getComponentType() {
+            return TYPE;
+        }
+
+        public int getIndex() {
+            return this.index;
+        }
+
+        public Ref<ChunkStore> getChunkRef() {
+            return this.chunkRef;
+        }
+
+        @Override
+        public BlockStateInfo clone() {
+            return new BlockStateInfo(this.index, this.chunkRef);
+        }
+    }
+}
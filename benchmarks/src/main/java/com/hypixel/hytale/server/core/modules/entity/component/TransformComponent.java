@@ -0,0 +1,40 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for entity transforms
+ */
+package com.hypixel.hytale.server.core.modules.entity.component;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+public class TransformComponent implements Component<EntityStore> {
+
+    private static final ComponentType<EntityStore, TransformComponent> TYPE = new ComponentType<>();
+
+    private final Vector3d position;
+
+    public TransformComponent(Vector3d position) {
+        this.position = position;
+    }
+
+    public static ComponentType<EntityStore, TransformComponent> getComponentType() {
+        return TYPE;
+    }
+
+    public Vector3d getPosition() {
+        return this.position;
+    }
+
+    public void teleportPosition(Vector3d position) {
+        this.position.x = position.x;
+        this.position.y = position.y;
+        this.position.z = position.z;
+    }
+
+    @Override
+    public TransformComponent clone() {
+        return new TransformComponent(new Vector3d(this.position.x, this.position.y, this.position.z));
+    }
+}
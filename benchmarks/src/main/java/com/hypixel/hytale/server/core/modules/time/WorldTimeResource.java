@@ -0,0 +1,41 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the world clock
+ */
+package com.hypixel.hytale.server.core.modules.time;
+
+import com.hypixel.hytale.component.Resource;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Game clock, advanced explicitly by whoever drives the world.
+ */
+public class WorldTimeResource implements Resource<EntityStore> {
+
+    private static final ResourceType<EntityStore, WorldTimeResource> TYPE = new ResourceType<>();
+
+    private Instant gameTime = Instant.EPOCH;
+
+    public static ResourceType<EntityStore, WorldTimeResource> getResourceType() {
+        return TYPE;
+    }
+
+    public Instant getGameTime() {
+        return this.gameTime;
+    }
+
+    public void advance(Duration duration) {
+        this.gameTime = this.gameTime.plus(duration);
+    }
+
+    @Override
+    public WorldTimeResource clone() {
+        WorldTimeResource copy = new WorldTimeResource();
+        copy.gameTime = this.gameTime;
+        return copy;
+    }
+}
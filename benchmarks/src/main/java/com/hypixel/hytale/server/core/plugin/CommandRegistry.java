@@ -0,0 +1,23 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the command registry
+ */
+package com.hypixel.hytale.server.core.plugin;
+
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class CommandRegistry {
+
+    private final Map<String, AbstractCommand> commands = new LinkedHashMap<>();
+
+    public void registerCommand(AbstractCommand command) {
+        this.commands.put(command.getName(), command);
+    }
+
+    public AbstractCommand getCommand(String name) {
+        return this.commands.get(name);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the event bus
+ */
+package com.hypixel.hytale.server.core.plugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class EventRegistry {
+
+    private final Map<Class<?>, List<Consumer<Object>>> handlers = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <E> void registerGlobal(Class<E> type, Consumer<E> handler) {
+        this.handlers.computeIfAbsent(type, key -> new ArrayList<>()).add((Consumer<Object>) handler);
+    }
+
+    public <E> void register(Class<E> type, Consumer<E> handler) {
+        this.registerGlobal(type, handler);
+    }
+
+    /**
+     * Deliver an event to every handler registered for its class.
+     */
+    public void dispatch(Object event) {
+        for (Consumer<Object> handler : this.handlers.getOrDefault(event.getClass(), List.of())) {
+            handler.accept(event);
+        }
+    }
+}
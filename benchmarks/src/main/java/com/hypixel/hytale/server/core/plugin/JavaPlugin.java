@@ -0,0 +1,58 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the plugin base class
+ */
+package com.hypixel.hytale.server.core.plugin;
+
+import java.nio.file.Path;
+
+public abstract class JavaPlugin {
+
+    private final JavaPluginInit init;
+    private final Manifest manifest = new Manifest();
+    private final Registry entityStoreRegistry = new Registry();
+    private final Registry chunkStoreRegistry = new Registry();
+    private final EventRegistry eventRegistry = new EventRegistry();
+    private final CommandRegistry commandRegistry = new CommandRegistry();
+
+    public JavaPlugin(JavaPluginInit init) {
+        this.init = init;
+    }
+
+    protected void setup() {
+    }
+
+    protected void shutdown() {
+    }
+
+    public Manifest getManifest() {
+        return this.manifest;
+    }
+
+    public Registry getEntityStoreRegistry() {
+        return this.entityStoreRegistry;
+    }
+
+    public Registry getChunkStoreRegistry() {
+        return this.chunkStoreRegistry;
+    }
+
+    public EventRegistry getEventRegistry() {
+        return this.eventRegistry;
+    }
+
+    public CommandRegistry getCommandRegistry() {
+        return this.commandRegistry;
+    }
+
+    public Path getDataDirectory() {
+        return this.init.getDataDirectory();
+    }
+
+    public static class Manifest {
+
+        public Object getVersion() {
+            return "dev";
+        }
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for plugin initialization data
+ */
+package com.hypixel.hytale.server.core.plugin;
+
+import java.nio.file.Path;
+
+public class JavaPluginInit {
+
+    private final Path dataDirectory;
+
+    public JavaPluginInit(Path dataDirectory) {
+        this.dataDirectory = dataDirectory;
+    }
+
+    public Path getDataDirectory() {
+        return this.dataDirectory;
+    }
+}
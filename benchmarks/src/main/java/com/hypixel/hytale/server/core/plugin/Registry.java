@@ -0,0 +1,40 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for a store's component and system registry
+ */
+package com.hypixel.hytale.server.core.plugin;
+
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.system.ISystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Hands out component types and keeps the registered systems so they can be
+ * installed into a world's store.
+ */
+public class Registry {
+
+    private final List<ISystem> systems = new ArrayList<>();
+
+    public <C extends Component> ComponentType registerComponent(Class<C> type, String id, BuilderCodec<C> codec) {
+        return new ComponentType();
+    }
+
+    public void registerSystem(ISystem system) {
+        this.systems.add(system);
+    }
+
+    public ResourceType registerResource(Class type, Supplier supplier) {
+        return new ResourceType();
+    }
+
+    public List<ISystem> getSystems() {
+        return this.systems;
+    }
+}
@@ -0,0 +1,12 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for UI event data
+ */
+package com.hypixel.hytale.server.core.ui.builder;
+
+public class EventData {
+
+    public static EventData of(String key, String value) {
+        return new EventData();
+    }
+}
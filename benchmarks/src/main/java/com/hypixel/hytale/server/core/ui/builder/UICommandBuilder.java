@@ -0,0 +1,14 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for UI command builders
+ */
+package com.hypixel.hytale.server.core.ui.builder;
+
+public class UICommandBuilder {
+
+    public void append(String document) {
+    }
+
+    public void set(String selector, String value) {
+    }
+}
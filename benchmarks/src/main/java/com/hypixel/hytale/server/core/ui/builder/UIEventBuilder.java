@@ -0,0 +1,13 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for UI event builders
+ */
+package com.hypixel.hytale.server.core.ui.builder;
+
+import com.hypixel.hytale.protocol.packets.interface_.CustomUIEventBindingType;
+
+public class UIEventBuilder {
+
+    public void addEventBinding(CustomUIEventBindingType type, String selector, EventData data, boolean locksInterface) {
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the player reference component
+ */
+package com.hypixel.hytale.server.core.universe;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.UUID;
+
+public class PlayerRef implements Component<EntityStore> {
+
+    private static final ComponentType<EntityStore, PlayerRef> TYPE = new ComponentType<>();
+
+    private final UUID uuid;
+
+    public PlayerRef(UUID uuid) {
+        this.uuid = uuid;
+    }
+
+    public static ComponentType<EntityStore, PlayerRef> getComponentType() {
+        return TYPE;
+    }
+
+    public UUID getUuid() {
+        return this.uuid;
+    }
+
+    @Override
+    public PlayerRef clone() {
+        return new PlayerRef(this.uuid);
+    }
+}
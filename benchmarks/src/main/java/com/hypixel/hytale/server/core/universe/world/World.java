@@ -0,0 +1,84 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for a world
+ */
+package com.hypixel.hytale.server.core.universe.world;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hypixel.hytale.server.core.universe.world.worldmap.WorldMapManager;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.function.LongFunction;
+
+/**
+ * World with its two stores and map manager. Tasks passed to execute() are
+ * queued and run by runPendingTasks(), as the world thread would between ticks.
+ * Chunks requested with getChunkAsync() are loaded by a pluggable loader;
+ * without one they resolve at once, as if already in memory.
+ */
+public class World implements Executor {
+
+    private final String name;
+    private final EntityStore entityStore;
+    private final ChunkStore chunkStore;
+    private final WorldMapManager worldMapManager = new WorldMapManager();
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+    private LongFunction<CompletableFuture<WorldChunk>> chunkLoader = index -> CompletableFuture.completedFuture(
+        new WorldChunk(ChunkUtil.xOfChunkIndex(index), ChunkUtil.zOfChunkIndex(index)));
+
+    public World(String name) {
+        this.name = name;
+        this.entityStore = new EntityStore(this);
+        this.chunkStore = new ChunkStore(this);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public EntityStore getEntityStore() {
+        return this.entityStore;
+    }
+
+    public ChunkStore getChunkStore() {
+        return this.chunkStore;
+    }
+
+    public WorldMapManager getWorldMapManager() {
+        return this.worldMapManager;
+    }
+
+    public CompletableFuture<WorldChunk> getChunkAsync(long index) {
+        return this.chunkLoader.apply(index);
+    }
+
+    public void setChunkLoader(LongFunction<CompletableFuture<WorldChunk>> chunkLoader) {
+        this.chunkLoader = chunkLoader;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.pendingTasks.add(task);
+    }
+
+    /**
+     * Run queued tasks, including any queued while running them.
+     *
+     * @return Number of tasks run
+     */
+    public int runPendingTasks() {
+        int count = 0;
+        Runnable task;
+        while ((task = this.pendingTasks.poll()) != null) {
+            task.run();
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for a player's world map tracker
+ */
+package com.hypixel.hytale.server.core.universe.world;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.protocol.packets.worldmap.MapMarker;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracker that accepts markers the way the server's does: markers outside
+ * the view radius are rejected, and the factory only runs for markers the
+ * player has not been sent yet. Sent markers are kept in a map, as on the server.
+ */
+public class WorldMapTracker {
+
+    // Player this tracker belongs to (null for trackers not bound to a player)
+    private final Player player;
+
+    // Markers sent to this player, by marker ID
+    private final Map<String, MapMarker> sentMarkers = new HashMap<>();
+
+    // Markers offered since the last reset (accepted or not)
+    private int offered;
+
+    public WorldMapTracker() {
+        this(null);
+    }
+
+    public WorldMapTracker(Player player) {
+        this.player = player;
+    }
+
+    public <T> void trySendMarker(int chunkViewRadiusSquared, int playerChunkX, int playerChunkZ,
+                                  Vector3d position, float yaw, String markerId, String markerName,
+                                  T param, MarkerFactory<T> factory) {
+        this.offered++;
+        int dx = ((int) Math.floor(position.x) >> 5) - playerChunkX;
+        int dz = ((int) Math.floor(position.z) >> 5) - playerChunkZ;
+        if (dx * dx + dz * dz > chunkViewRadiusSquared) {
+            return;
+        }
+        if (!this.sentMarkers.containsKey(markerId)) {
+            this.sentMarkers.put(markerId, factory.apply(markerId, markerName, param));
+        }
+    }
+
+    public Player getPlayer() {
+        return this.player;
+    }
+
+    public int getOffered() {
+        return this.offered;
+    }
+
+    public int getSentCount() {
+        return this.sentMarkers.size();
+    }
+
+    public void reset() {
+        this.offered = 0;
+        this.sentMarkers.clear();
+    }
+
+    public interface MarkerFactory<T> {
+
+        MapMarker apply(String markerId, String markerName, T param);
+    }
+}
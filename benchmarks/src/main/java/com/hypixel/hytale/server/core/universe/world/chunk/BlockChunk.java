@@ -0,0 +1,34 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the block data of a chunk column
+ */
+package com.hypixel.hytale.server.core.universe.world.chunk;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.chunk.section.BlockSection;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+public class BlockChunk implements Component<ChunkStore> {
+
+    private static final ComponentType<ChunkStore, BlockChunk> TYPE = new ComponentType<>();
+
+    private final BlockSection[] sections;
+
+    public BlockChunk(BlockSection[] sections) {
+        this.sections = sections;
+    }
+
+    public static ComponentType<ChunkStore, BlockChunk> getComponentType() {
+        return TYPE;
+    }
+
+    public BlockSection getSectionAtBlockY(int y) {
+        return this.sections[y >> 5];
+    }
+
+    @Override
+    public BlockChunk clone() {
+        return new BlockChunk(this.sections.clone());
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the block entities of a chunk column
+ */
+package com.hypixel.hytale.server.core.universe.world.chunk;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Block entities of a chunk column, by block index in the column.
+ */
+public class BlockComponentChunk implements Component<ChunkStore> {
+
+    private static final ComponentType<ChunkStore, BlockComponentChunk> TYPE = new ComponentType<>();
+
+    private final Map<Integer, Ref<ChunkStore>> entities = new HashMap<>();
+
+    public static ComponentType<ChunkStore, BlockComponentChunk> getComponentType() {
+        return TYPE;
+    }
+
+    public Ref<ChunkStore> getEntityReference(int index) {
+        return this.entities.get(index);
+    }
+
+    public void putEntityReference(int index, Ref<ChunkStore> ref) {
+        this.entities.put(index, ref);
+    }
+
+    public void removeEntityReference(int index) {
+        this.entities.remove(index);
+    }
+
+    @Override
+    public BlockComponentChunk clone() {
+        BlockComponentChunk copy = new BlockComponentChunk();
+        copy.entities.putAll(this.entities);
+        return copy;
+    }
+}
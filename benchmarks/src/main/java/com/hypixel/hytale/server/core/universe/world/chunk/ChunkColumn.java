@@ -0,0 +1,38 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the section list of a chunk column
+ */
+package com.hypixel.hytale.server.core.universe.world.chunk;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+public class ChunkColumn implements Component<ChunkStore> {
+
+    private static final ComponentType<ChunkStore, ChunkColumn> TYPE = new ComponentType<>();
+
+    private final Ref<ChunkStore>[] sections;
+
+    public ChunkColumn(Ref<ChunkStore>[] sections) {
+        this.sections = sections;
+    }
+
+    public static ComponentType<ChunkStore, ChunkColumn> getComponentType() {
+        return TYPE;
+    }
+
+    public Ref<ChunkStore> getSection(int y) {
+        return y >= 0 && y < this.sections.length ? this.sections[y] : null;
+    }
+
+    public Ref<ChunkStore>[] getSections() {
+        return this.sections;
+    }
+
+    @Override
+    public ChunkColumn clone() {
+        return new ChunkColumn(this.sections.clone());
+    }
+}
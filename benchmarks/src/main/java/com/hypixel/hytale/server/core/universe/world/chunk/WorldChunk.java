@@ -0,0 +1,39 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the chunk column identity component
+ */
+package com.hypixel.hytale.server.core.universe.world.chunk;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+public class WorldChunk implements Component<ChunkStore> {
+
+    private static final ComponentType<ChunkStore, WorldChunk> TYPE = new ComponentType<>();
+
+    private final int x;
+    private final int z;
+
+    public WorldChunk(int x, int z) {
+        this.x = x;
+        this.z = z;
+    }
+
+    public static ComponentType<ChunkStore, WorldChunk> getComponentType() {
+        return TYPE;
+    }
+
+    public int getX() {
+        return this.x;
+    }
+
+    public int getZ() {
+        return this.z;
+    }
+
+    @Override
+    public WorldChunk clone() {
+        return new WorldChunk(this.x, this.z);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the block tick schedule of a chunk section
+ */
+package com.hypixel.hytale.server.core.universe.world.chunk.section;
+
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.asset.type.blocktick.BlockTickStrategy;
+import com.hypixel.hytale.server.core.modules.time.WorldTimeResource;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scheduled block ticks of one 32x32x32 section, by section block index.
+ *
+ * A tick is due once the world clock reaches its scheduled time.
+ * forEachTicking() hands each due block to the consumer once, passing its
+ * y relative to the chunk column, and drops it from the schedule unless the
+ * consumer asks to keep ticking (CONTINUE) or reschedules it itself.
+ */
+public class BlockSection implements Component<ChunkStore> {
+
+    private static final ComponentType<ChunkStore, BlockSection> TYPE = new ComponentType<>();
+
+    private final WorldTimeResource clock;
+    private final Map<Integer, Instant> scheduledTicks = new HashMap<>();
+
+    // Earliest scheduled tick, or null if none; lets idle sections skip the scan
+    private Instant earliest;
+
+    public BlockSection(WorldTimeResource clock) {
+        this.clock = clock;
+    }
+
+    public static ComponentType<ChunkStore, BlockSection> getComponentType() {
+        return TYPE;
+    }
+
+    public void scheduleTick(int index, Instant time) {
+        if (time == null) {
+            this.scheduledTicks.remove(index);
+        } else {
+            this.scheduledTicks.put(index, time);
+            if (this.earliest == null || time.isBefore(this.earliest)) {
+                this.earliest = time;
+            }
+        }
+    }
+
+    public int getTickingBlocksCountCopy() {
+        Instant now = this.clock.getGameTime();
+        if (this.earliest == null || this.earliest.isAfter(now)) {
+            return 0;
+        }
+        int count = 0;
+        for (Instant time : this.scheduledTicks.values()) {
+            if (!time.isAfter(now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getScheduledCount() {
+        return this.scheduledTicks.size();
+    }
+
+    public <T> void forEachTicking(T target, CommandBuffer<ChunkStore> commandBuffer, int sectionY,
+                                   TickConsumer<T> consumer) {
+        Instant now = this.clock.getGameTime();
+        List<Integer> due = new ArrayList<>();
+        for (Map.Entry<Integer, Instant> entry : this.scheduledTicks.entrySet()) {
+            if (!entry.getValue().isAfter(now)) {
+                due.add(entry.getKey());
+            }
+        }
+        for (int index : due) {
+            this.scheduledTicks.remove(index);
+            int x = index & 31;
+            int z = (index >> 5) & 31;
+            int y = (sectionY << 5) | (index >>> 10);
+            BlockTickStrategy strategy = consumer.accept(target, commandBuffer, x, y, z, 0);
+            if (strategy == BlockTickStrategy.CONTINUE) {
+                this.scheduledTicks.putIfAbsent(index, now);
+            }
+        }
+
+        this.earliest = null;
+        for (Instant time : this.scheduledTicks.values()) {
+            if (this.earliest == null || time.isBefore(this.earliest)) {
+                this.earliest = time;
+            }
+        }
+    }
+
+    @Override
+    public BlockSection clone() {
+        BlockSection copy = new BlockSection(this.clock);
+        copy.scheduledTicks.putAll(this.scheduledTicks);
+        copy.earliest = this.earliest;
+        return copy;
+    }
+
+    public interface TickConsumer<T> {
+
+        BlockTickStrategy accept(T target, CommandBuffer<ChunkStore> commandBuffer, int x, int y, int z, int blockId);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the position of a chunk section
+ */
+package com.hypixel.hytale.server.core.universe.world.chunk.section;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+public class ChunkSection implements Component<ChunkStore> {
+
+    private static final ComponentType<ChunkStore, ChunkSection> TYPE = new ComponentType<>();
+
+    private final int x;
+    private final int y;
+    private final int z;
+    private Ref<ChunkStore> chunkColumnReference;
+
+    public ChunkSection(int x, int y, int z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public static ComponentType<ChunkStore, ChunkSection> getComponentType() {
+        return TYPE;
+    }
+
+    public int getX() {
+        return this.x;
+    }
+
+    public int getY() {
+        return this.y;
+    }
+
+    public int getZ() {
+        return this.z;
+    }
+
+    public Ref<ChunkStore> getChunkColumnReference() {
+        return this.chunkColumnReference;
+    }
+
+    public void setChunkColumnReference(Ref<ChunkStore> chunkColumnReference) {
+        this.chunkColumnReference = chunkColumnReference;
+    }
+
+    @Override
+    public ChunkSection clone() {
+        ChunkSection copy = new ChunkSection(this.x, this.y, this.z);
+        copy.chunkColumnReference = this.chunkColumnReference;
+        return copy;
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the world added event
+ */
+package com.hypixel.hytale.server.core.universe.world.events;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+
+public class AddWorldEvent {
+
+    private final World world;
+
+    public AddWorldEvent(World world) {
+        this.world = world;
+    }
+
+    public World getWorld() {
+        return this.world;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the chunk store of a world
+ */
+package com.hypixel.hytale.server.core.universe.world.storage;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Chunk store of a world, with the loaded chunk columns by chunk index.
+ */
+public class ChunkStore {
+
+    private final World world;
+    private final Store<ChunkStore> store;
+    private final Map<Long, Ref<ChunkStore>> chunkReferences = new HashMap<>();
+
+    public ChunkStore(World world) {
+        this.world = world;
+        this.store = new Store<>(this);
+    }
+
+    public World getWorld() {
+        return this.world;
+    }
+
+    public Store<ChunkStore> getStore() {
+        return this.store;
+    }
+
+    public Ref<ChunkStore> getChunkReference(long index) {
+        return this.chunkReferences.get(index);
+    }
+
+    public void putChunkReference(long index, Ref<ChunkStore> ref) {
+        this.chunkReferences.put(index, ref);
+    }
+
+    public void removeChunkReference(long index) {
+        this.chunkReferences.remove(index);
+    }
+}
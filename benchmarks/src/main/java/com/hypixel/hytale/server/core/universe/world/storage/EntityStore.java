@@ -0,0 +1,27 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the entity store of a world
+ */
+package com.hypixel.hytale.server.core.universe.world.storage;
+
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+public class EntityStore {
+
+    private final World world;
+    private final Store<EntityStore> store;
+
+    public EntityStore(World world) {
+        this.world = world;
+        this.store = new Store<>(this);
+    }
+
+    public World getWorld() {
+        return this.world;
+    }
+
+    public Store<EntityStore> getStore() {
+        return this.store;
+    }
+}
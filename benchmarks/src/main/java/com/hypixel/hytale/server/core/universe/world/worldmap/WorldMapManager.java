@@ -0,0 +1,27 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for the world map manager
+ */
+package com.hypixel.hytale.server.core.universe.world.worldmap;
+
+import com.hypixel.hytale.server.core.asset.type.gameplay.GameplayConfig;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.WorldMapTracker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class WorldMapManager {
+
+    private final Map<String, MarkerProvider> markerProviders = new LinkedHashMap<>();
+
+    public Map<String, MarkerProvider> getMarkerProviders() {
+        return this.markerProviders;
+    }
+
+    public interface MarkerProvider {
+
+        void update(World world, GameplayConfig gameplayConfig, WorldMapTracker worldMapTracker,
+                    int chunkViewRadiusSquared, int playerChunkX, int playerChunkZ);
+    }
+}
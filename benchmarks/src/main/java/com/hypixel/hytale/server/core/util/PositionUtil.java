@@ -0,0 +1,18 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Stand-in for converting transforms to packets
+ */
+package com.hypixel.hytale.server.core.util;
+
+import com.hypixel.hytale.math.vector.Transform;
+
+public class PositionUtil {
+
+    public static com.hypixel.hytale.protocol.Transform toTransformPacket(Transform transform) {
+        com.hypixel.hytale.protocol.Transform packet = new com.hypixel.hytale.protocol.Transform();
+        packet.x = transform.getPosition().getX();
+        packet.y = transform.getPosition().getY();
+        packet.z = transform.getPosition().getZ();
+        return packet;
+    }
+}
@@ -0,0 +1,443 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Headless load simulation of the plugin's ECS systems
+ */
+package pickleflag;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Runs the plugin's systems (OnFlagPlaced, FlagChunkReconciler, FlagTicking,
+ * PlayerJoinedSystem, FlagDiscoverySystem) and its map marker provider
+ * against the in-process server fakes, on a laptop, in four phases:
+ * - place:  flags are placed a batch per tick until the target count is reached
+ * - steady: players walk around; flags tick, discovery runs and maps refresh
+ * - churn:  chunks unload and load again while flags are placed and broken;
+ *           some flags vanish from unloaded chunks, as after a rollback
+ * - remove: every flag is broken, a batch per tick
+ *
+ * Each phase reports tick-time percentiles and retained heap, then checks
+ * that the registry holds exactly the flags present in the world, and that
+ * its snapshot holds exactly the flags in the registry, with no cluster
+ * markers cached for cells that no longer exist. After the
+ * steady phase the listing and teleport commands are timed against the full
+ * registry, and a player's saved discoveries are loaded against an unknown
+ * ordinal table and saved again, which must write them back unchanged.
+ * The world is then removed, which must unsubscribe everything the plugin
+ * subscribed for it, and the run ends with the output of /pickleflag stats.
+ * Tick times include the fakes' own bookkeeping, so compare runs with each
+ * other rather than with a real server.
+ *
+ * Run: ./gradlew :benchmarks:simulate -PsimArgs="flags=50000 players=200 ticks=3000"
+ * Arguments (key=value, all optional): flags, players, ticks, batch, churn, area, seed
+ */
+public final class FlagSimulation {
+
+    private static final String WORLD_NAME = "simulation";
+
+    // Ticks a chunk stays unloaded during the churn phase before it loads again
+    private static final int UNLOADED_TICKS = SimulatedWorld.TICKS_PER_SECOND;
+
+    // Ticks run after loading everything back, so queued reconciliation finishes
+    private static final int SETTLE_TICKS = 5;
+
+    private final int flags;
+    private final int players;
+    private final int ticks;
+    private final int batch;
+    private final int churn;
+    private final Random random;
+    private final PickleFlagPlugin plugin;
+    private final SimulatedWorld world;
+
+    private FlagSimulation(Options options, PickleFlagPlugin plugin) {
+        this.flags = options.get("flags", 20000);
+        this.players = options.get("players", 100);
+        this.ticks = options.get("ticks", 1800);
+        this.batch = options.get("batch", 200);
+        this.churn = options.get("churn", 8);
+        this.random = new Random(options.get("seed", 1));
+        this.plugin = plugin;
+        this.world = new SimulatedWorld(WORLD_NAME, plugin, options.get("area", 64));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+        Path dataDirectory = Files.createTempDirectory("pickleflag-simulation");
+        try {
+            PickleFlagPlugin plugin = new PickleFlagPlugin(new JavaPluginInit(dataDirectory));
+            plugin.setup();
+            try {
+                new FlagSimulation(options, plugin).run();
+            } finally {
+                plugin.shutdown();
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dataDirectory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void run() {
+        this.world.loadArea();
+        for (int i = 0; i < this.players; i++) {
+            this.world.addPlayer(this.random);
+        }
+        this.world.tick(this.random);
+        System.out.printf("%d flags, %d players, %d chunks loaded%n",
+            this.flags, this.players, this.world.getLoadedChunkCount());
+        System.out.println(TickRecorder.header());
+
+        this.phase("place", () -> {
+            for (int i = 0; i < this.batch && this.world.getSavedFlagCount() < this.flags; i++) {
+                this.world.placeFlag(this.world.randomChunk(this.random), this.world.randomChunk(this.random),
+                    this.random);
+            }
+            return this.world.getSavedFlagCount() < this.flags;
+        });
+
+        int[] remaining = {this.ticks};
+        this.phase("steady", () -> --remaining[0] > 0);
+        this.timeCommands();
+        this.checkUndecodedDiscoveries();
+
+        ArrayDeque<long[]> unloaded = new ArrayDeque<>();
+        int[] churnTicks = {0};
+        int[] erased = {0};
+        this.phase("churn", () -> {
+            int tick = churnTicks[0]++;
+            for (int i = 0; i < this.churn && tick < this.ticks; i++) {
+                int chunkX = this.world.randomChunk(this.random);
+                int chunkZ = this.world.randomChunk(this.random);
+                if (this.world.unloadChunk(chunkX, chunkZ)) {
+                    unloaded.add(new long[] {chunkX, chunkZ, tick});
+                    if (this.random.nextInt(10) == 0 && this.world.eraseSavedFlag(chunkX, chunkZ)) {
+                        erased[0]++;
+                    }
+                }
+                this.world.placeFlag(this.world.randomChunk(this.random), this.world.randomChunk(this.random),
+                    this.random);
+                this.world.breakFlag(this.world.randomChunk(this.random), this.world.randomChunk(this.random));
+            }
+            while (!unloaded.isEmpty() && (unloaded.peek()[2] + UNLOADED_TICKS <= tick || tick >= this.ticks)) {
+                long[] chunk = unloaded.poll();
+                this.world.loadChunk((int) chunk[0], (int) chunk[1]);
+            }
+            return tick < this.ticks + SETTLE_TICKS;
+        });
+        System.out.printf("         %d flags erased from unloaded chunks%n", erased[0]);
+
+        List<Long> flagChunks = this.world.getFlagChunks();
+        int[] next = {0};
+        this.phase("remove", () -> {
+            for (int i = 0; i < this.batch && next[0] < flagChunks.size(); ) {
+                long key = flagChunks.get(next[0]);
+                if (this.world.breakFlag(ChunkUtil.xOfChunkIndex(key), ChunkUtil.zOfChunkIndex(key))) {
+                    i++;
+                } else {
+                    next[0]++;
+                }
+            }
+            return next[0] < flagChunks.size();
+        });
+
+        System.out.printf("%d discovery messages sent%n", this.world.getDiscoveryMessageCount());
+
+        int leaked = this.world.remove();
+        if (leaked != 0) {
+            System.out.printf("MISMATCH: %d flag event listeners left after the world was removed%n", leaked);
+        }
+
+        for (Message message : this.command("stats", null, Map.of()).getMessages()) {
+            System.out.println(message.getText());
+        }
+    }
+
+    /**
+     * Time the listing commands: the first call after the registry changed
+     * (which builds the name index) and the mean of repeated calls.
+     */
+    private void timeCommands() {
+        CommandSender player = this.world.getPlayer(0);
+        FlagManager.FlagData target = this.world.getRegistry().snapshot().getAllFlags().get(0);
+        Map<String, String> tpArguments = Map.of("flag",
+            this.plugin.getFlagManager().getFlagIds().toString(target.handle()));
+
+        // Two players teleporting to a flag in an unloaded chunk share one load
+        this.world.unloadChunk(ChunkUtil.chunkCoordinate(target.x()), ChunkUtil.chunkCoordinate(target.z()));
+        AbstractCommand tp = this.plugin.getCommandRegistry().getCommand("pickleflag").getSubCommand("tp");
+        var firstTeleport = tp.invoke(new CommandContext(player, tpArguments));
+        var secondTeleport = tp.invoke(new CommandContext(this.world.getPlayer(1), tpArguments));
+        int loads = this.plugin.getFlagTeleporter().inFlightCount();
+        this.world.runPendingTasks();
+        CompletableFuture.allOf(firstTeleport, secondTeleport).join();
+        System.out.printf("         /pickleflag tp     2 teleports into an unloaded chunk, %d load in flight, %d after%n",
+            loads, this.plugin.getFlagTeleporter().inFlightCount());
+
+        // A world that refuses chunk requests outright must fail the teleport, not leave its load in flight
+        World refusing = new World("refusing");
+        refusing.setChunkLoader(index -> {
+            throw new IllegalStateException("world is shutting down");
+        });
+        CompletableFuture<Void> refused = this.plugin.getFlagTeleporter().prewarm(refusing, target.x(), target.z());
+        if (!refused.isCompletedExceptionally() || this.plugin.getFlagTeleporter().inFlightCount() != 0) {
+            System.out.printf("         MISMATCH: refused chunk load left %d loads in flight%n",
+                this.plugin.getFlagTeleporter().inFlightCount());
+        }
+
+        Map<String, Map<String, String>> commands = new LinkedHashMap<>();
+        commands.put("list", Map.of("page", "1"));
+        commands.put("search", Map.of("prefix", "Flag 12", "page", "2"));
+        commands.put("near", Map.of("count", "20"));
+        commands.put("tp", tpArguments);
+        for (Map.Entry<String, Map<String, String>> entry : commands.entrySet()) {
+            long start = System.nanoTime();
+            CommandContext context = this.command(entry.getKey(), player, entry.getValue());
+            long first = System.nanoTime() - start;
+
+            int repeats = 1000;
+            start = System.nanoTime();
+            for (int i = 0; i < repeats; i++) {
+                this.command(entry.getKey(), player, entry.getValue());
+            }
+            long mean = (System.nanoTime() - start) / repeats;
+            System.out.printf("         /pickleflag %-6s first %8.1f us, then %6.1f us, %d lines%n",
+                entry.getKey(), first / 1e3, mean / 1e3, context.getMessages().size());
+        }
+
+        // Pages past the end, however far, are refused rather than listed empty
+        CommandContext pastEnd = this.command("list", player, Map.of("page", String.valueOf(Integer.MAX_VALUE)));
+        System.out.printf("         /pickleflag list   page %d: %s%n", Integer.MAX_VALUE,
+            pastEnd.getMessages().get(0).getText());
+
+        // Teleport and transfers need their permissions
+        Player denied = this.world.getPlayer(2);
+        denied.denyPermission(PickleFlagCommand.TP_PERMISSION);
+        denied.denyPermission(PickleFlagCommand.TRANSFER_PERMISSION);
+        for (String name : List.of("tp", "export")) {
+            CommandContext context = this.command(name, denied,
+                name.equals("tp") ? tpArguments : Map.of("file", "denied.ndjson"));
+            System.out.printf("         /pickleflag %-6s without permission: %s%n", name,
+                context.getMessages().get(0).getText());
+        }
+
+        // Round trip the registry through both dump formats; importing an unchanged dump is a no-op
+        for (String file : List.of("simulation.ndjson", "simulation.bin")) {
+            for (String name : List.of("export", "import")) {
+                long version = this.world.getRegistry().getVersion();
+                CommandContext context = this.command(name, null, Map.of("file", file));
+                System.out.printf("         /pickleflag %-6s %s (registry version +%d)%n", name,
+                    context.getMessages().get(0).getText(), this.world.getRegistry().getVersion() - version);
+            }
+        }
+
+        // A dump that breaks off after renaming half the flags must change none of them
+        try {
+            Path dump = this.plugin.getFlagTransfer().resolve("simulation.ndjson");
+            List<String> lines = Files.readAllLines(dump);
+            Stream<String> renamed = lines.stream().limit(lines.size() / 2)
+                .map(line -> line.replace("\"name\":\"", "\"name\":\"Damaged "));
+            Files.write(dump.resolveSibling("damaged.ndjson"),
+                Stream.concat(renamed, Stream.of("{\"world\":")).toList());
+        } catch (IOException e) {
+            System.out.println("         MISMATCH: could not write a damaged dump: " + e);
+            return;
+        }
+        long version = this.world.getRegistry().getVersion();
+        CommandContext context = this.command("import", null, Map.of("file", "damaged.ndjson"));
+        System.out.printf("         /pickleflag import damaged dump: %s%n", context.getMessages().get(0).getText());
+        if (this.world.getRegistry().getVersion() != version) {
+            System.out.printf("         MISMATCH: damaged dump changed the registry (version +%d)%n",
+                this.world.getRegistry().getVersion() - version);
+        }
+    }
+
+    /**
+     * Load a saved discovery bitset with no ordinal table and with a different
+     * table, then save it again: the saved bits must come back unchanged, and a
+     * flag discovered in between must be saved by ID.
+     */
+    private void checkUndecodedDiscoveries() {
+        FlagIds flagIds = this.plugin.getFlagManager().getFlagIds();
+        PlayerFlagData original = new PlayerFlagData();
+        List<FlagManager.FlagData> all = this.world.getRegistry().snapshot().getAllFlags();
+        for (int i = 0; i < all.size(); i += 7) {
+            original.addDiscoveredFlag(all.get(i).handle());
+        }
+        long[] saved = PlayerFlagData.toSavedBits(original, flagIds);
+        if (saved == null) {
+            System.out.println("         MISMATCH: flag ordinal table is not persisted");
+            return;
+        }
+
+        Path otherTable = null;
+        try {
+            otherTable = Files.createTempFile("pickleflag-ordinals", ".bin");
+            FlagIds other = new FlagIds();
+            other.load(otherTable);
+            try {
+                for (FlagIds table : List.of(new FlagIds(), other)) {
+                    PlayerFlagData loaded = new PlayerFlagData();
+                    PlayerFlagData.readSavedBits(loaded, saved, table);
+                    loaded.addDiscoveredFlag(table.intern(flagIds.uuidOf(all.get(0).handle())));
+                    long[] resaved = PlayerFlagData.toSavedBits(loaded, table);
+                    String[] ids = PlayerFlagData.toSavedIds(loaded, table);
+                    String kind = table == other ? "another" : "no";
+                    if (!Arrays.equals(saved, resaved)) {
+                        System.out.printf("         MISMATCH: saved discoveries rewritten after a load with %s ordinal table%n",
+                            kind);
+                    } else if (ids.length != 1) {
+                        System.out.printf("         MISMATCH: %d discoveries saved by ID after a load with %s ordinal table%n",
+                            ids.length, kind);
+                    }
+                }
+            } finally {
+                other.close();
+            }
+            System.out.printf("         saved discoveries of %d flags kept across unknown ordinal tables%n",
+                original.getDiscoveredCount());
+        } catch (IOException e) {
+            System.out.println("         MISMATCH: could not create a second ordinal table: " + e);
+        } finally {
+            if (otherTable != null) {
+                try {
+                    Files.deleteIfExists(otherTable);
+                } catch (IOException ignored) {
+                    // Temporary file; left behind at worst
+                }
+            }
+        }
+    }
+
+    /**
+     * Run a /pickleflag subcommand to completion, including work it queued on the world thread.
+     */
+    private CommandContext command(String name, CommandSender sender, Map<String, String> arguments) {
+        CommandContext context = new CommandContext(sender, arguments);
+        var result = this.plugin.getCommandRegistry().getCommand("pickleflag").getSubCommand(name)
+            .invoke(context);
+        this.world.runPendingTasks();
+        result.join();
+        return context;
+    }
+
+    /**
+     * Run ticks until the workload says the phase is over, then report it.
+     *
+     * @param workload Work done at the start of each tick; returns false once the phase is complete
+     */
+    private void phase(String name, Workload workload) {
+        TickRecorder recorder = new TickRecorder(name);
+        long heapBefore = TickRecorder.retainedHeap();
+        boolean more;
+        do {
+            recorder.start();
+            more = workload.step();
+            this.world.tick(this.random);
+            recorder.stop();
+        } while (more);
+        System.out.println(recorder.report(heapBefore));
+
+        int registered = this.world.getRegistry().size();
+        int saved = this.world.getSavedFlagCount();
+        if (registered != saved) {
+            System.out.printf("         MISMATCH: registry holds %d flags, world holds %d%n", registered, saved);
+        }
+
+        FlagRegistry registry = this.world.getRegistry();
+        // Cluster markers of cells that emptied out must not stay cached
+        int clusters = this.world.getMarkerCache().clusterCount();
+        if (clusters > registry.getClusterTree().size()) {
+            System.out.printf("         MISMATCH: %d cluster markers cached for %d cells%n",
+                clusters, registry.getClusterTree().size());
+        }
+
+        // Snapshots are patched with each change; the result must match the registry exactly
+        FlagSnapshot snapshot = registry.snapshot();
+        int stale = 0;
+        for (FlagManager.FlagData flag : snapshot.getAllFlags()) {
+            boolean[] indexed = {false};
+            snapshot.forEachFlagInChunk(ChunkUtil.chunkCoordinate(flag.x()), ChunkUtil.chunkCoordinate(flag.z()),
+                found -> indexed[0] |= found == flag);
+            if (registry.getFlag(flag.handle()) != flag || !indexed[0]) {
+                stale++;
+            }
+        }
+        if (stale > 0 || snapshot.size() != registered || snapshot.spatialIndex().size() != registered) {
+            System.out.printf("         MISMATCH: snapshot holds %d flags (%d indexed, %d stale), registry holds %d%n",
+                snapshot.size(), snapshot.spatialIndex().size(), stale, registered);
+        }
+
+        // The name index is patched too: after the phase, and after a few renames
+        this.checkNameIndex(registry);
+        List<FlagManager.FlagData> flags = registry.snapshot().getAllFlags();
+        Random renames = new Random(registered);
+        for (int i = 0; i < Math.min(3, flags.size()); i++) {
+            FlagManager.FlagData flag = flags.get(renames.nextInt(flags.size()));
+            registry.renameFlag(flag.handle(), "Renamed " + renames.nextInt(100000));
+        }
+        this.checkNameIndex(registry);
+    }
+
+    /**
+     * Compare the registry's name index with one sorted from scratch.
+     */
+    private void checkNameIndex(FlagRegistry registry) {
+        FlagNameIndex index = registry.nameIndex();
+        FlagNameIndex sorted = FlagNameIndex.build(registry.snapshot());
+        if (index.version() != sorted.version() || !index.range(0, index.size()).equals(sorted.range(0, sorted.size()))) {
+            System.out.printf("         MISMATCH: name index at version %d holds %d flags, sorted from scratch %d at %d%n",
+                index.version(), index.size(), sorted.size(), sorted.version());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Workload {
+
+        boolean step();
+    }
+
+    /**
+     * Command line arguments in key=value form.
+     */
+    private static final class Options {
+
+        private final String[] args;
+
+        Options(String[] args) {
+            this.args = args;
+        }
+
+        int get(String key, int defaultValue) {
+            for (String arg : this.args) {
+                if (arg.startsWith(key + "=")) {
+                    return Integer.parseInt(arg.substring(key.length() + 1));
+                }
+            }
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Restart checks for the on-disk flag store
+ */
+package pickleflag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Crashes a FlagStore at the points where its files can be left half
+ * written, and checks that a restart restores exactly the flags it should:
+ * - replay:    a snapshot followed by a journal of later changes
+ * - race:      two threads renaming the same flags; the journal must end
+ *              with the state the registry ended with
+ * - torn:      the last journal record cut short; only that change is lost
+ * - crc:       the last journal record damaged in place; likewise
+ * - switched:  compaction stopped after the journal switch, before the
+ *              new snapshot replaced the old one
+ * - moved:     compaction stopped after the new snapshot replaced the old
+ *              one, before the journals it covers were deleted
+ *
+ * A crash is simulated by copying the data directory while the store is
+ * still open, after FlagStore.flush(), so the copy holds exactly what a
+ * killed server would leave behind. Every restored directory is then
+ * loaded a second time, which checks that the compaction run by the first
+ * restart cleaned up after the crash.
+ *
+ * Run: ./gradlew :benchmarks:verifyStore (also part of ./gradlew :benchmarks:check)
+ * Exits with an exception at the first scenario that restores the wrong flags.
+ */
+public final class FlagStoreRecovery {
+
+    private final Random random = new Random(1);
+    private final Path root;
+    private final FlagManager flagManager = new FlagManager();
+    private final FlagStore flagStore;
+    private final Path directory;
+    private final List<Integer> handles = new ArrayList<>();
+
+    private FlagStoreRecovery(Path root) {
+        this.root = root;
+        this.directory = root.resolve("live");
+        this.flagStore = new FlagStore(this.directory, this.flagManager);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path root = Files.createTempDirectory("pickleflag-store");
+        try {
+            new FlagStoreRecovery(root).run();
+        } finally {
+            try (Stream<Path> files = Files.walk(root)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        this.flagStore.load();
+
+        // Changes before and after a compaction, so the restart needs both files
+        this.change("alpha", 400);
+        this.change("beta", 100);
+        this.flagStore.compact();
+        this.change("alpha", 200);
+        this.change("beta", 50);
+        this.flagStore.flush();
+        this.check("replay", this.crash(), this.expected());
+
+        this.race();
+        this.flagStore.flush();
+        this.check("race", this.crash(), this.expected());
+
+        // One last known change, then damage its record
+        Map<String, Map<UUID, String>> beforeRename = this.expected();
+        int handle = this.handles.get(this.random.nextInt(this.handles.size()));
+        while (this.registryOf(handle) == null) {
+            handle = this.handles.get(this.random.nextInt(this.handles.size()));
+        }
+        this.registryOf(handle).renameFlag(handle, "Torn");
+        this.flagStore.flush();
+
+        Path torn = this.crash();
+        try (FileChannel journal = FileChannel.open(this.lastJournal(torn), StandardOpenOption.WRITE)) {
+            journal.truncate(journal.size() - 3);
+        }
+        this.check("torn", torn, beforeRename);
+
+        Path crc = this.crash();
+        try (FileChannel journal = FileChannel.open(this.lastJournal(crc), StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            journal.read(last, journal.size() - 1);
+            last.put(0, (byte) (last.get(0) ^ 0x5A)).rewind();
+            journal.write(last, journal.size() - 1);
+        }
+        this.check("crc", crc, beforeRename);
+
+        // Compaction stopped after the journal switch: a new, empty journal
+        // and a half-written temporary snapshot next to the old files
+        Path switched = this.crash();
+        long generation = this.generationOf(this.lastJournal(switched));
+        Files.createFile(switched.resolve(FlagStore.JOURNAL_PREFIX + (generation + 1)));
+        Files.write(switched.resolve(FlagStore.SNAPSHOT_FILE + ".tmp"), new byte[] {0x50, 0x46, 0x53});
+        this.check("switched", switched, this.expected());
+
+        // Compaction stopped after the move: the new snapshot and journal,
+        // next to the journals the snapshot already covers
+        this.change("alpha", 50);
+        this.flagStore.flush();
+        Path moved = this.crash();
+        this.flagStore.compact();
+        this.change("beta", 20);
+        this.flagStore.flush();
+        for (Path file : this.files(this.directory)) {
+            Files.copy(file, moved.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+        this.check("moved", moved, this.expected());
+
+        this.flagStore.close();
+        this.check("shutdown", this.crash(), this.expected());
+    }
+
+    // ==================== Changes ====================
+
+    /**
+     * Add flags to a world, then rename, move and remove some of its flags.
+     */
+    private void change(String worldName, int count) {
+        FlagBatch batch = this.flagManager.batch(worldName);
+        for (int i = 0; i < count; i++) {
+            int handle = this.flagManager.getFlagIds().intern(UUID.randomUUID());
+            batch.add(handle, "Flag " + handle, this.random.nextInt(4096) - 2048, 64, this.random.nextInt(4096) - 2048);
+            this.handles.add(handle);
+        }
+        batch.commit();
+
+        for (int i = 0; i < count / 4; i++) {
+            int handle = this.handles.get(this.random.nextInt(this.handles.size()));
+            FlagRegistry owner = this.registryOf(handle);
+            if (owner == null) {
+                continue;
+            }
+            switch (this.random.nextInt(3)) {
+                case 0 -> owner.renameFlag(handle, "Renamed " + this.random.nextInt(1000));
+                case 1 -> owner.moveFlag(handle, this.random.nextInt(4096) - 2048, 70, this.random.nextInt(4096) - 2048);
+                default -> owner.removeFlag(handle);
+            }
+        }
+    }
+
+    /**
+     * Rename the same flags from two threads at once.
+     */
+    private void race() throws InterruptedException {
+        List<Integer> contested = new ArrayList<>();
+        for (int handle : this.handles) {
+            if (this.registryOf(handle) != null && contested.size() < 16) {
+                contested.add(handle);
+            }
+        }
+
+        Thread[] threads = new Thread[2];
+        for (int t = 0; t < threads.length; t++) {
+            String prefix = "Thread " + t + " ";
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    int handle = contested.get(i % contested.size());
+                    this.registryOf(handle).renameFlag(handle, prefix + i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private FlagRegistry registryOf(int handle) {
+        return this.flagManager.findRegistry(handle);
+    }
+
+    // ==================== Crash and restore ====================
+
+    /**
+     * Copy the data directory as a killed server would leave it.
+     */
+    private Path crash() throws IOException {
+        Path image = Files.createTempDirectory(this.root, "crash");
+        for (Path file : this.files(this.directory)) {
+            Files.copy(file, image.resolve(file.getFileName()));
+        }
+        return image;
+    }
+
+    /**
+     * Restore a crashed directory twice and compare both results with the expected flags.
+     */
+    private void check(String scenario, Path image, Map<String, Map<UUID, String>> expected) throws IOException {
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            FlagManager restored = new FlagManager();
+            FlagStore store = new FlagStore(image, restored);
+            int count = store.load();
+            store.close();
+
+            Map<String, Map<UUID, String>> actual = describe(restored);
+            if (!actual.equals(expected)) {
+                System.out.printf("%-10s MISMATCH after restart %d: %s%n", scenario, attempt, difference(expected, actual));
+                throw new IllegalStateException("Flag store restored the wrong flags in scenario " + scenario);
+            }
+            if (attempt == 2) {
+                System.out.printf("%-10s %d flags restored, files left: %s%n", scenario, count, this.names(image));
+            }
+        }
+    }
+
+    private Map<String, Map<UUID, String>> expected() {
+        return describe(this.flagManager);
+    }
+
+    /**
+     * Every non-empty world's flags, by UUID, as "name @ x y z".
+     */
+    private static Map<String, Map<UUID, String>> describe(FlagManager flagManager) {
+        Map<String, Map<UUID, String>> worlds = new TreeMap<>();
+        FlagIds flagIds = flagManager.getFlagIds();
+        for (FlagRegistry registry : flagManager.getRegistries()) {
+            Map<UUID, String> flags = new HashMap<>();
+            for (int handle = 0; handle < flagIds.size(); handle++) {
+                FlagManager.FlagData flag = registry.getFlag(handle);
+                if (flag != null) {
+                    flags.put(flagIds.uuidOf(handle), flag.name() + " @ " + flag.x() + " " + flag.y() + " " + flag.z());
+                }
+            }
+            if (!flags.isEmpty()) {
+                worlds.put(registry.getWorldName(), flags);
+            }
+        }
+        return worlds;
+    }
+
+    private static String difference(Map<String, Map<UUID, String>> expected, Map<String, Map<UUID, String>> actual) {
+        for (Map.Entry<String, Map<UUID, String>> world : expected.entrySet()) {
+            Map<UUID, String> flags = actual.getOrDefault(world.getKey(), Map.of());
+            for (Map.Entry<UUID, String> flag : world.getValue().entrySet()) {
+                if (!flag.getValue().equals(flags.get(flag.getKey()))) {
+                    return world.getKey() + " " + flag.getKey() + " expected " + flag.getValue()
+                        + ", restored " + flags.get(flag.getKey());
+                }
+            }
+            if (flags.size() != world.getValue().size()) {
+                return world.getKey() + " expected " + world.getValue().size() + " flags, restored " + flags.size();
+            }
+        }
+        return "unexpected worlds " + actual.keySet();
+    }
+
+    // ==================== Files ====================
+
+    private List<Path> files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    private List<String> names(Path directory) throws IOException {
+        return this.files(directory).stream().map(file -> file.getFileName().toString()).toList();
+    }
+
+    private Path lastJournal(Path directory) throws IOException {
+        Path last = null;
+        for (Path file : this.files(directory)) {
+            if (file.getFileName().toString().startsWith(FlagStore.JOURNAL_PREFIX)
+                && (last == null || this.generationOf(file) > this.generationOf(last))) {
+                last = file;
+            }
+        }
+        if (last == null) {
+            throw new IllegalStateException("No journal in " + directory);
+        }
+        return last;
+    }
+
+    private long generationOf(Path journal) {
+        return Long.parseLong(journal.getFileName().toString().substring(FlagStore.JOURNAL_PREFIX.length()));
+    }
+}
@@ -0,0 +1,458 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * One world of the load simulation, built on the in-process server fakes
+ */
+package pickleflag;
+
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.system.ISystem;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.modules.block.BlockModule;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.modules.time.WorldTimeResource;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.WorldMapTracker;
+import com.hypixel.hytale.server.core.universe.world.chunk.BlockChunk;
+import com.hypixel.hytale.server.core.universe.world.chunk.BlockComponentChunk;
+import com.hypixel.hytale.server.core.universe.world.chunk.ChunkColumn;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.chunk.section.BlockSection;
+import com.hypixel.hytale.server.core.universe.world.chunk.section.ChunkSection;
+import com.hypixel.hytale.server.core.universe.world.events.AddWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hypixel.hytale.server.core.universe.world.worldmap.WorldMapManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A world driven the way the server drives it, without a server.
+ *
+ * Chunk columns, sections and flag blocks are entities in the fake chunk
+ * store, so the plugin's systems see the same adds and removes (with the
+ * same reasons) as on a real server. Flag blocks are kept in saved form
+ * while their chunk is unloaded and decoded again when it loads.
+ */
+final class SimulatedWorld {
+
+    // Server tick rate
+    static final int TICKS_PER_SECOND = 30;
+
+    // Sections per chunk column (256 blocks high)
+    private static final int SECTIONS = 8;
+
+    // Ticks between map refreshes for each player
+    private static final int MAP_REFRESH_TICKS = 10;
+
+    // View radius for map refreshes (squared, in chunks)
+    private static final int VIEW_RADIUS_SQUARED = 64;
+
+    // Player walking speed in blocks per second (sprinting)
+    private static final double PLAYER_SPEED = 5.6;
+
+    private static final float TICK_SECONDS = 1.0f / TICKS_PER_SECOND;
+    private static final Duration TICK_DURATION = Duration.ofNanos(1_000_000_000L / TICKS_PER_SECOND);
+
+    private final World world;
+    private final Store<ChunkStore> chunkStore;
+    private final Store<EntityStore> entityStore;
+    private final WorldTimeResource clock = new WorldTimeResource();
+    private final ComponentType<ChunkStore, PickleFlagBlock> flagBlockType;
+    private final FlagRegistry registry;
+    private final PickleFlagPlugin plugin;
+    private final int areaChunks;
+
+    // Flag event listeners subscribed before the plugin was told about this world
+    private final int listenersBefore;
+
+    // Flag blocks as saved in the world: chunk index -> block index in column -> encoded block
+    private final Map<Long, Map<Integer, Map<String, Object>>> savedBlocks = new HashMap<>();
+
+    // Loaded chunk columns by chunk index
+    private final Map<Long, LoadedChunk> loadedChunks = new HashMap<>();
+
+    private final List<SimulatedPlayer> players = new ArrayList<>();
+    private int savedFlagCount;
+    private long tickCount;
+
+    /**
+     * Create a world, install the plugin's systems into its stores and
+     * announce it to the plugin as the server does.
+     *
+     * @param name       World name
+     * @param plugin     Plugin that has already run setup()
+     * @param areaChunks Width of the square playable area, in chunks
+     */
+    @SuppressWarnings("unchecked")
+    SimulatedWorld(String name, PickleFlagPlugin plugin, int areaChunks) {
+        this.world = new World(name);
+        this.chunkStore = this.world.getChunkStore().getStore();
+        this.entityStore = this.world.getEntityStore().getStore();
+        this.entityStore.putResource(WorldTimeResource.getResourceType(), this.clock);
+        this.flagBlockType = plugin.getFlagBlockComponent();
+        this.registry = plugin.getFlagManager().getRegistry(name);
+        this.plugin = plugin;
+        this.areaChunks = areaChunks;
+
+        for (ISystem system : plugin.getChunkStoreRegistry().getSystems()) {
+            this.chunkStore.registerSystem(system);
+        }
+        for (ISystem system : plugin.getEntityStoreRegistry().getSystems()) {
+            this.entityStore.registerSystem(system);
+        }
+        this.listenersBefore = plugin.getFlagManager().listenerCount();
+        plugin.getEventRegistry().dispatch(new AddWorldEvent(this.world));
+
+        // Chunks requested by the plugin load on the world thread, between ticks
+        this.world.setChunkLoader(index -> CompletableFuture.supplyAsync(() -> {
+            int chunkX = ChunkUtil.xOfChunkIndex(index);
+            int chunkZ = ChunkUtil.zOfChunkIndex(index);
+            this.loadChunk(chunkX, chunkZ);
+            return new WorldChunk(chunkX, chunkZ);
+        }, this.world));
+    }
+
+    /**
+     * Announce the world's removal to the plugin as the server does.
+     *
+     * @return Flag event listeners the plugin left subscribed for this world
+     */
+    int remove() {
+        this.plugin.getEventRegistry().dispatch(new RemoveWorldEvent(this.world));
+        return this.plugin.getFlagManager().listenerCount() - this.listenersBefore;
+    }
+
+    FlagRegistry getRegistry() {
+        return this.registry;
+    }
+
+    int getSavedFlagCount() {
+        return this.savedFlagCount;
+    }
+
+    int getLoadedChunkCount() {
+        return this.loadedChunks.size();
+    }
+
+    Player getPlayer(int index) {
+        return this.players.get(index).player;
+    }
+
+    int getDiscoveryMessageCount() {
+        int count = 0;
+        for (SimulatedPlayer player : this.players) {
+            count += player.player.getMessageCount();
+        }
+        return count;
+    }
+
+    /**
+     * Run one server tick: advance the clock, run every ticking system, run
+     * the tasks queued on the world thread and refresh maps when due.
+     */
+    void tick(Random random) {
+        this.clock.advance(TICK_DURATION);
+        for (SimulatedPlayer player : this.players) {
+            player.walk(random);
+        }
+        this.chunkStore.tick(TICK_SECONDS);
+        this.entityStore.tick(TICK_SECONDS);
+        this.world.runPendingTasks();
+        if (++this.tickCount % MAP_REFRESH_TICKS == 0) {
+            this.refreshMaps();
+        }
+    }
+
+    /**
+     * Run the tasks queued on the world thread without ticking, as for a command.
+     */
+    void runPendingTasks() {
+        this.world.runPendingTasks();
+    }
+
+    // ==================== Chunks ====================
+
+    /**
+     * Load every chunk column of the playable area.
+     */
+    void loadArea() {
+        int half = this.areaChunks / 2;
+        for (int cx = -half; cx < this.areaChunks - half; cx++) {
+            for (int cz = -half; cz < this.areaChunks - half; cz++) {
+                this.loadChunk(cx, cz);
+            }
+        }
+    }
+
+    /**
+     * Load a chunk column with its sections and saved flag blocks.
+     *
+     * @return false if the chunk was already loaded
+     */
+    @SuppressWarnings("unchecked")
+    boolean loadChunk(int chunkX, int chunkZ) {
+        long key = ChunkUtil.indexChunk(chunkX, chunkZ);
+        if (this.loadedChunks.containsKey(key)) {
+            return false;
+        }
+
+        Ref<ChunkStore>[] sectionRefs = new Ref[SECTIONS];
+        ChunkSection[] sections = new ChunkSection[SECTIONS];
+        BlockSection[] blockSections = new BlockSection[SECTIONS];
+        for (int y = 0; y < SECTIONS; y++) {
+            sections[y] = new ChunkSection(chunkX, y, chunkZ);
+            blockSections[y] = new BlockSection(this.clock);
+            sectionRefs[y] = this.chunkStore.addEntity(components(
+                ChunkSection.getComponentType(), sections[y],
+                BlockSection.getComponentType(), blockSections[y]), AddReason.LOAD);
+        }
+
+        BlockComponentChunk blockComponentChunk = new BlockComponentChunk();
+        Map<ComponentType<ChunkStore, ?>, Component<ChunkStore>> column = components(
+            WorldChunk.getComponentType(), new WorldChunk(chunkX, chunkZ),
+            BlockChunk.getComponentType(), new BlockChunk(blockSections));
+        column.put(BlockComponentChunk.getComponentType(), blockComponentChunk);
+        column.put(ChunkColumn.getComponentType(), new ChunkColumn(sectionRefs));
+        Ref<ChunkStore> columnRef = this.chunkStore.addEntity(column, AddReason.LOAD);
+        for (ChunkSection section : sections) {
+            section.setChunkColumnReference(columnRef);
+        }
+        this.world.getChunkStore().putChunkReference(key, columnRef);
+
+        LoadedChunk chunk = new LoadedChunk(columnRef, sectionRefs, blockComponentChunk);
+        this.loadedChunks.put(key, chunk);
+
+        Map<Integer, Map<String, Object>> saved = this.savedBlocks.get(key);
+        if (saved != null) {
+            for (Map.Entry<Integer, Map<String, Object>> entry : saved.entrySet()) {
+                this.addFlagEntity(chunk, entry.getKey(), PickleFlagBlock.CODEC.decode(entry.getValue()),
+                    AddReason.LOAD);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Save and unload a chunk column.
+     *
+     * @return false if the chunk was not loaded
+     */
+    boolean unloadChunk(int chunkX, int chunkZ) {
+        long key = ChunkUtil.indexChunk(chunkX, chunkZ);
+        LoadedChunk chunk = this.loadedChunks.remove(key);
+        if (chunk == null) {
+            return false;
+        }
+
+        Map<Integer, Map<String, Object>> saved = this.savedBlocks.get(key);
+        for (Map.Entry<Integer, Ref<ChunkStore>> entry : chunk.flagRefs.entrySet()) {
+            PickleFlagBlock flagBlock = this.chunkStore.getComponent(entry.getValue(), this.flagBlockType);
+            saved.put(entry.getKey(), PickleFlagBlock.CODEC.encode(flagBlock));
+            this.chunkStore.removeEntity(entry.getValue(), RemoveReason.UNLOAD);
+        }
+        this.world.getChunkStore().removeChunkReference(key);
+        this.chunkStore.removeEntity(chunk.columnRef, RemoveReason.UNLOAD);
+        for (Ref<ChunkStore> sectionRef : chunk.sectionRefs) {
+            this.chunkStore.removeEntity(sectionRef, RemoveReason.UNLOAD);
+        }
+        return true;
+    }
+
+    /**
+     * Delete one saved flag block from an unloaded chunk behind the plugin's
+     * back, as a rollback or an external world edit would.
+     *
+     * @return false if the chunk is loaded or holds no flags
+     */
+    boolean eraseSavedFlag(int chunkX, int chunkZ) {
+        long key = ChunkUtil.indexChunk(chunkX, chunkZ);
+        Map<Integer, Map<String, Object>> saved = this.savedBlocks.get(key);
+        if (this.loadedChunks.containsKey(key) || saved == null || saved.isEmpty()) {
+            return false;
+        }
+        saved.remove(saved.keySet().iterator().next());
+        this.savedFlagCount--;
+        return true;
+    }
+
+    // ==================== Flags ====================
+
+    /**
+     * Place a new flag block at a random free position of a loaded chunk.
+     *
+     * @return false if the chunk is not loaded or the position is taken
+     */
+    boolean placeFlag(int chunkX, int chunkZ, Random random) {
+        long key = ChunkUtil.indexChunk(chunkX, chunkZ);
+        LoadedChunk chunk = this.loadedChunks.get(key);
+        int index = ChunkUtil.indexBlockInColumn(random.nextInt(32), 64 + random.nextInt(64), random.nextInt(32));
+        if (chunk == null || chunk.flagRefs.containsKey(index)) {
+            return false;
+        }
+
+        PickleFlagBlock flagBlock = new PickleFlagBlock();
+        flagBlock.setFlagName("Flag " + this.savedFlagCount);
+        this.savedBlocks.computeIfAbsent(key, k -> new HashMap<>())
+            .put(index, PickleFlagBlock.CODEC.encode(flagBlock));
+        this.savedFlagCount++;
+        this.addFlagEntity(chunk, index, flagBlock, AddReason.SPAWN);
+        return true;
+    }
+
+    /**
+     * Break one flag block of a loaded chunk.
+     *
+     * @return false if the chunk is not loaded or holds no flags
+     */
+    boolean breakFlag(int chunkX, int chunkZ) {
+        long key = ChunkUtil.indexChunk(chunkX, chunkZ);
+        LoadedChunk chunk = this.loadedChunks.get(key);
+        if (chunk == null || chunk.flagRefs.isEmpty()) {
+            return false;
+        }
+
+        int index = chunk.flagRefs.keySet().iterator().next();
+        this.chunkStore.removeEntity(chunk.flagRefs.remove(index), RemoveReason.REMOVE);
+        chunk.blocks.removeEntityReference(index);
+        this.savedBlocks.get(key).remove(index);
+        this.savedFlagCount--;
+        return true;
+    }
+
+    /**
+     * Chunk indexes that hold saved flags, loaded or not.
+     */
+    List<Long> getFlagChunks() {
+        List<Long> chunks = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, Map<String, Object>>> entry : this.savedBlocks.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                chunks.add(entry.getKey());
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Random chunk coordinate inside the playable area.
+     */
+    int randomChunk(Random random) {
+        return random.nextInt(this.areaChunks) - this.areaChunks / 2;
+    }
+
+    private void addFlagEntity(LoadedChunk chunk, int index, PickleFlagBlock flagBlock, AddReason reason) {
+        Ref<ChunkStore> ref = this.chunkStore.addEntity(components(
+            BlockModule.BlockStateInfo.getComponentType(), new BlockModule.BlockStateInfo(index, chunk.columnRef),
+            this.flagBlockType, flagBlock), reason);
+        chunk.flagRefs.put(index, ref);
+        chunk.blocks.putEntityReference(index, ref);
+    }
+
+    // ==================== Players ====================
+
+    /**
+     * Spawn a player at a random position of the playable area.
+     */
+    void addPlayer(Random random) {
+        double half = (this.areaChunks << 5) / 2.0;
+        Vector3d position = new Vector3d(random.nextDouble() * 2 * half - half, 80,
+            random.nextDouble() * 2 * half - half);
+        Player player = new Player(this.world, UUID.randomUUID());
+        Map<ComponentType<EntityStore, ?>, Component<EntityStore>> components = new HashMap<>();
+        components.put(Player.getComponentType(), player);
+        components.put(PlayerRef.getComponentType(), new PlayerRef(player.getUuid()));
+        components.put(TransformComponent.getComponentType(), new TransformComponent(position));
+        Ref<EntityStore> ref = this.entityStore.addEntity(components, AddReason.SPAWN);
+        player.setReference(ref);
+        this.players.add(new SimulatedPlayer(player, position, new WorldMapTracker(player),
+            random.nextDouble() * 2 * Math.PI, half));
+    }
+
+    /**
+     * Get the marker cache of the plugin's marker provider for this world.
+     */
+    FlagMarkerCache getMarkerCache() {
+        return ((PickleFlagMarkerProvider) this.world.getWorldMapManager().getMarkerProviders()
+            .get("pickle_flag_plugin")).getMarkerCache();
+    }
+
+    /**
+     * Refresh every player's map with the plugin's marker provider.
+     */
+    private void refreshMaps() {
+        WorldMapManager.MarkerProvider provider = this.world.getWorldMapManager().getMarkerProviders()
+            .get("pickle_flag_plugin");
+        for (SimulatedPlayer player : this.players) {
+            provider.update(this.world, null, player.tracker, VIEW_RADIUS_SQUARED,
+                ChunkUtil.chunkCoordinate(player.position.x), ChunkUtil.chunkCoordinate(player.position.z));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> Map<ComponentType<S, ?>, Component<S>> components(Object... typesAndComponents) {
+        Map<ComponentType<S, ?>, Component<S>> components = new HashMap<>();
+        for (int i = 0; i < typesAndComponents.length; i += 2) {
+            components.put((ComponentType<S, ?>) typesAndComponents[i], (Component<S>) typesAndComponents[i + 1]);
+        }
+        return components;
+    }
+
+    /**
+     * Entities of a loaded chunk column.
+     */
+    private record LoadedChunk(Ref<ChunkStore> columnRef, Ref<ChunkStore>[] sectionRefs,
+                               BlockComponentChunk blocks, Map<Integer, Ref<ChunkStore>> flagRefs) {
+
+        LoadedChunk(Ref<ChunkStore> columnRef, Ref<ChunkStore>[] sectionRefs, BlockComponentChunk blocks) {
+            this(columnRef, sectionRefs, blocks, new HashMap<>());
+        }
+    }
+
+    /**
+     * Player walking a wandering path, turning back at the edge of the area.
+     */
+    private static final class SimulatedPlayer {
+
+        private final Player player;
+        private final Vector3d position;
+        private final WorldMapTracker tracker;
+        private final double limit;
+        private double heading;
+
+        SimulatedPlayer(Player player, Vector3d position, WorldMapTracker tracker, double heading, double limit) {
+            this.player = player;
+            this.position = position;
+            this.tracker = tracker;
+            this.heading = heading;
+            this.limit = limit;
+        }
+
+        void walk(Random random) {
+            this.heading += random.nextGaussian() * 0.05;
+            double step = PLAYER_SPEED / TICKS_PER_SECOND;
+            double x = this.position.x + Math.cos(this.heading) * step;
+            double z = this.position.z + Math.sin(this.heading) * step;
+            if (Math.abs(x) >= this.limit || Math.abs(z) >= this.limit) {
+                this.heading += Math.PI;
+                return;
+            }
+            this.position.x = x;
+            this.position.z = z;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Tick-time and heap measurements for the load simulation
+ */
+package pickleflag;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+
+/**
+ * Records the wall time of every tick of one simulation phase and the heap
+ * retained after it.
+ */
+final class TickRecorder {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final String phase;
+    private long[] tickNanos = new long[1024];
+    private int count;
+    private long startNanos;
+
+    TickRecorder(String phase) {
+        this.phase = phase;
+    }
+
+    void start() {
+        this.startNanos = System.nanoTime();
+    }
+
+    void stop() {
+        long elapsed = System.nanoTime() - this.startNanos;
+        if (this.count == this.tickNanos.length) {
+            this.tickNanos = Arrays.copyOf(this.tickNanos, this.count * 2);
+        }
+        this.tickNanos[this.count++] = elapsed;
+    }
+
+    /**
+     * Format one report line: tick count, percentiles in milliseconds and retained heap.
+     *
+     * @param heapBefore Retained heap before the phase, from retainedHeap()
+     */
+    String report(long heapBefore) {
+        long heapAfter = retainedHeap();
+        long[] sorted = Arrays.copyOf(this.tickNanos, this.count);
+        Arrays.sort(sorted);
+        return String.format("%-8s %7d %9.3f %9.3f %9.3f %9.3f %9.3f %10.1f %+10.1f",
+            this.phase, this.count,
+            millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 0.999),
+            this.count > 0 ? sorted[this.count - 1] / 1e6 : 0.0,
+            heapAfter / 1048576.0, (heapAfter - heapBefore) / 1048576.0);
+    }
+
+    static String header() {
+        return String.format("%-8s %7s %9s %9s %9s %9s %9s %10s %10s",
+            "phase", "ticks", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "heap MiB", "delta");
+    }
+
+    /**
+     * Heap still in use after a full collection.
+     */
+    static long retainedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Changes to one world's registry collected for a single commit
+ */
+package pickleflag;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Adds, removals and renames collected for one FlagRegistry and applied
+ * together by commit().
+ *
+ * Applying a hundred changes one by one bumps the registry version a hundred
+ * times, and every reader in between (marker providers, discovery, commands)
+ * rebuilds its snapshot and recomputes its markers. A committed batch is one
+ * version: snapshots, the name index and marker lists are rebuilt once, and
+ * no reader ever sees part of it. The usual events are still published for
+ * every change, after the batch is in place.
+ *
+ * Changes are recorded, not applied, until commit(). add() still reports the
+ * name the flag will end up with, so callers can sync block state right
+ * away. A batch is not thread-safe; fill and commit it on one thread.
+ */
+public final class FlagBatch {
+
+    // Registry the batch will be applied to
+    private final FlagRegistry registry;
+
+    // Recorded changes, in order
+    private final List<Change> changes = new ArrayList<>();
+
+    // Map of flag handle -> name the batch leaves it with (null = removed by the batch)
+    private final Map<Integer, String> pendingNames = new HashMap<>();
+
+    /**
+     * Create an empty batch. Use FlagManager.batch().
+     *
+     * @param registry Registry the batch will be applied to
+     */
+    FlagBatch(FlagRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Record registering a flag, as FlagRegistry.addFlag would.
+     *
+     * @param handle Handle of the flag (see FlagIds)
+     * @param name   Display name for the flag
+     * @param x      World X coordinate
+     * @param y      World Y coordinate
+     * @param z      World Z coordinate
+     * @return The name the flag will have once committed: a known flag keeps its registry name
+     */
+    public String add(int handle, String name, int x, int y, int z) {
+        String kept = this.nameOf(handle);
+        String effective = kept != null ? kept : name;
+        this.changes.add(new Add(handle, name, x, y, z));
+        this.pendingNames.put(handle, effective);
+        return effective;
+    }
+
+    /**
+     * Record removing a flag.
+     *
+     * @param handle Handle of the flag to remove
+     */
+    public void remove(int handle) {
+        this.changes.add(new Remove(handle));
+        this.pendingNames.put(handle, null);
+    }
+
+    /**
+     * Record renaming a flag. Has no effect if the flag is gone by commit time.
+     *
+     * @param handle Handle of the flag
+     * @param name   The new name
+     */
+    public void rename(int handle, String name) {
+        this.changes.add(new Rename(handle, name));
+        if (this.nameOf(handle) != null) {
+            this.pendingNames.put(handle, name);
+        }
+    }
+
+    /**
+     * Apply every recorded change to the registry as one version, then empty the batch.
+     *
+     * @return Number of changes that altered the registry
+     */
+    public int commit() {
+        if (this.changes.isEmpty()) {
+            return 0;
+        }
+        int applied = this.registry.commit(this);
+        this.changes.clear();
+        this.pendingNames.clear();
+        return applied;
+    }
+
+    /**
+     * Number of changes recorded since the last commit.
+     */
+    public int size() {
+        return this.changes.size();
+    }
+
+    /**
+     * Apply the recorded changes in order. Called by FlagRegistry.commit.
+     *
+     * @param registry Registry to change
+     * @param sink     Receives an event for every change that altered the registry
+     */
+    void applyTo(FlagRegistry registry, Consumer<FlagEvent> sink) {
+        for (Change change : this.changes) {
+            change.apply(registry, sink);
+        }
+    }
+
+    /**
+     * Name a flag will have after the changes recorded so far, or null if it will not exist.
+     */
+    private String nameOf(int handle) {
+        if (this.pendingNames.containsKey(handle)) {
+            return this.pendingNames.get(handle);
+        }
+        FlagManager.FlagData existing = this.registry.getFlag(handle);
+        return existing != null ? existing.name() : null;
+    }
+
+    /**
+     * One recorded change.
+     */
+    private sealed interface Change {
+
+        void apply(FlagRegistry registry, Consumer<FlagEvent> sink);
+    }
+
+    private record Add(int handle, String name, int x, int y, int z) implements Change {
+
+        @Override
+        public void apply(FlagRegistry registry, Consumer<FlagEvent> sink) {
+            registry.addFlag(this.handle, this.name, this.x, this.y, this.z, sink);
+        }
+    }
+
+    private record Remove(int handle) implements Change {
+
+        @Override
+        public void apply(FlagRegistry registry, Consumer<FlagEvent> sink) {
+            registry.removeFlag(this.handle, sink);
+        }
+    }
+
+    private record Rename(int handle, String name) implements Change {
+
+        @Override
+        public void apply(FlagRegistry registry, Consumer<FlagEvent> sink) {
+            registry.renameFlag(this.handle, this.name, sink);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Lookups from registry positions back to loaded flag blocks
+ */
+package pickleflag;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.BlockComponentChunk;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * Helpers for finding the loaded block behind a registry entry.
+ *
+ * All methods must be called on the world thread (use World.execute).
+ * They return null when the flag's chunk is not loaded; the block will
+ * pick up registry state again when the chunk loads.
+ */
+public final class FlagBlocks {
+
+    private FlagBlocks() {
+    }
+
+    /**
+     * Get the chunk column reference containing a world position.
+     *
+     * @return The chunk reference, or null if the chunk is not loaded
+     */
+    @NullableDecl
+    public static Ref<ChunkStore> getChunkRef(World world, int x, int z) {
+        Ref<ChunkStore> chunkRef = world.getChunkStore()
+            .getChunkReference(ChunkUtil.indexChunkFromBlock(x, z));
+        return chunkRef != null && chunkRef.isValid() ? chunkRef : null;
+    }
+
+    /**
+     * Get the flag block component for a registered flag.
+     *
+     * @return The loaded component, or null if the chunk is unloaded or the block is gone
+     */
+    @NullableDecl
+    public static PickleFlagBlock getFlagBlock(World world, FlagManager.FlagData flag) {
+        Ref<ChunkStore> chunkRef = getChunkRef(world, flag.x(), flag.z());
+        if (chunkRef == null) {
+            return null;
+        }
+
+        Store<ChunkStore> store = world.getChunkStore().getStore();
+        BlockComponentChunk blockComponentChunk = store.getComponent(chunkRef,
+            BlockComponentChunk.getComponentType());
+        if (blockComponentChunk == null) {
+            return null;
+        }
+
+        Ref<ChunkStore> blockRef = blockComponentChunk.getEntityReference(
+            ChunkUtil.indexBlockInColumn(flag.x() & 31, flag.y(), flag.z() & 31));
+        if (blockRef == null || !blockRef.isValid()) {
+            return null;
+        }
+        return store.getComponent(blockRef, PickleFlagPlugin.get().getFlagBlockComponent());
+    }
+}
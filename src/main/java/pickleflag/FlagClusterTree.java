@@ -0,0 +1,148 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Quadtree of flag counts used to cluster map markers
+ */
+package pickleflag;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Linear quadtree that counts a world's flags per map cell at several zoom
+ * levels, so dense areas can be shown as one cluster marker per cell.
+ *
+ * A cell at level L covers 2^L by 2^L chunks, and its four children at
+ * level L-1 split it in quarters. Only cells that hold flags exist; they are
+ * kept in one hash map keyed by level and cell coordinates, so finding the
+ * cell of a flag at any level is a single lookup.
+ *
+ * The tree is maintained incrementally by its FlagRegistry: every add, move
+ * and removal updates the counts along the flag's path from the smallest to
+ * the largest cell, which costs one map update per level regardless of how
+ * many flags the world holds. Updates are serialized; readers see immutable
+ * Cell records and never block.
+ */
+public final class FlagClusterTree {
+
+    // Smallest cell: 2 by 2 chunks (64 blocks)
+    static final int MIN_LEVEL = 1;
+
+    // Largest cell: 64 by 64 chunks (2048 blocks)
+    static final int MAX_LEVEL = 6;
+
+    // View radius, in cells, that levelFor() aims for
+    private static final int CELLS_PER_VIEW_RADIUS = 4;
+
+    // Map of cell key -> cell holding at least one flag
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+
+    // Flag records currently counted in the tree
+    private final HandleTable<FlagManager.FlagData> counted = new HandleTable<>();
+
+    /**
+     * Bring one flag's counts up to date with the registry.
+     *
+     * Called after every registry change with the flag's current record, so
+     * concurrent changes applied in any order still leave the tree matching
+     * the registry.
+     *
+     * @param handle  Handle of the flag that changed
+     * @param current The flag's record now in the registry, or null if it was removed
+     */
+    public synchronized void update(int handle, FlagManager.FlagData current) {
+        FlagManager.FlagData previous = this.counted.get(handle);
+        if (previous == current) {
+            return;
+        }
+        if (previous != null) {
+            this.apply(previous, -1);
+        }
+        if (current != null) {
+            this.counted.put(handle, current);
+            this.apply(current, 1);
+        } else {
+            this.counted.remove(handle);
+        }
+    }
+
+    /**
+     * Get the cell that holds a flag at a level.
+     *
+     * @param level Cell level, MIN_LEVEL to MAX_LEVEL
+     * @param flag  Flag whose cell to look up
+     * @return The cell, or null if the tree has not counted the flag yet
+     */
+    public Cell cellOf(int level, FlagManager.FlagData flag) {
+        return this.cells.get(cellKey(level,
+            FlagSpatialIndex.chunkCoordinate(flag.x()) >> level,
+            FlagSpatialIndex.chunkCoordinate(flag.z()) >> level));
+    }
+
+    /**
+     * Pick the cell level for a map view: larger views get larger cells, so
+     * a view spans about the same number of cells at any zoom.
+     *
+     * @param chunkRadiusSquared Squared view radius in chunks
+     */
+    public static int levelFor(int chunkRadiusSquared) {
+        int cellChunks = Math.max(1, (int) Math.sqrt(chunkRadiusSquared) / CELLS_PER_VIEW_RADIUS);
+        int level = 31 - Integer.numberOfLeadingZeros(cellChunks);
+        return Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, level));
+    }
+
+    /**
+     * Number of non-empty cells across all levels.
+     */
+    public int size() {
+        return this.cells.size();
+    }
+
+    private void apply(FlagManager.FlagData flag, int delta) {
+        int chunkX = FlagSpatialIndex.chunkCoordinate(flag.x());
+        int chunkZ = FlagSpatialIndex.chunkCoordinate(flag.z());
+        for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+            int cellX = chunkX >> level;
+            int cellZ = chunkZ >> level;
+            int cellLevel = level;
+            this.cells.compute(cellKey(level, cellX, cellZ), (key, cell) -> {
+                int count = (cell != null ? cell.count() : 0) + delta;
+                if (count <= 0) {
+                    return null;
+                }
+                return new Cell(cellLevel, cellX, cellZ, count,
+                    (cell != null ? cell.sumX() : 0L) + delta * (long) flag.x(),
+                    (cell != null ? cell.sumY() : 0L) + delta * (long) flag.y(),
+                    (cell != null ? cell.sumZ() : 0L) + delta * (long) flag.z());
+            });
+        }
+    }
+
+    /**
+     * Pack a level and cell coordinates into a map key: 6 bits of level and
+     * 29 bits of each cell coordinate.
+     */
+    static long cellKey(int level, int cellX, int cellZ) {
+        return ((long) level << 58) | ((cellX & 0x1FFFFFFFL) << 29) | (cellZ & 0x1FFFFFFFL);
+    }
+
+    /**
+     * Flags counted in one cell. Replaced, never modified, when its flags change.
+     *
+     * @param level Cell level
+     * @param cellX Cell X (chunk X >> level)
+     * @param cellZ Cell Z (chunk Z >> level)
+     * @param count Number of flags in the cell
+     * @param sumX  Sum of the flags' X coordinates
+     * @param sumY  Sum of the flags' Y coordinates
+     * @param sumZ  Sum of the flags' Z coordinates
+     */
+    public record Cell(int level, int cellX, int cellZ, int count, long sumX, long sumY, long sumZ) {
+
+        /**
+         * Map key of this cell.
+         */
+        public long key() {
+            return cellKey(this.level, this.cellX, this.cellZ);
+        }
+    }
+}
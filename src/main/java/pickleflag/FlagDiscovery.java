@@ -0,0 +1,217 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Player-centric proximity discovery of placed flags
+ */
+package pickleflag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Proximity discovery driven by player movement instead of flag polling.
+ *
+ * Each player keeps a small list of undiscovered flags in their chunk
+ * neighbourhood. The list is only rebuilt from the registry's spatial index
+ * when the player crosses a chunk boundary or the registry changes; every
+ * other tick just measures the distance to the few candidates in the list.
+ * The cost therefore grows with player movement, not with the number of
+ * flags planted in the world.
+ */
+public final class FlagDiscovery {
+
+    // Discovery radius (blocks) - how close player needs to be to discover the flag
+    static final double DISCOVERY_RADIUS_SQUARED = 25.0; // 5 blocks
+
+    // Chunks searched around the player: their own chunk plus all 8 neighbours.
+    // The discovery radius is far smaller than a chunk, so this always covers it.
+    static final int NEIGHBOURHOOD_RADIUS_SQUARED = 2;
+
+    private FlagDiscovery() {
+    }
+
+    /**
+     * Check a player's position for newly discovered flags.
+     * Also keeps the world's player presence counts up to date.
+     *
+     * @param state        The player's discovery state
+     * @param registry     Registry of the world the player is in
+     * @param data         The player's flag data
+     * @param x            Player X position
+     * @param y            Player Y position
+     * @param z            Player Z position
+     * @param onDiscovered Called for each flag discovered by this check
+     * @return true if the player entered a new chunk (or world) since the last check
+     */
+    public static boolean update(State state, FlagRegistry registry, PlayerFlagData data,
+                                 double x, double y, double z,
+                                 Consumer<FlagManager.FlagData> onDiscovered) {
+        boolean enteredChunk = enter(state, registry, x, z);
+        for (FlagManager.FlagData flag : evaluate(state, registry, registry.snapshot(), data::hasDiscoveredFlag,
+            x, y, z)) {
+            data.addDiscoveredFlag(flag.handle());
+            onDiscovered.accept(flag);
+        }
+        return enteredChunk;
+    }
+
+    /**
+     * Move a player's presence to the chunk at a position. Call on the world thread.
+     *
+     * @param state    The player's discovery state
+     * @param registry Registry of the world the player is in
+     * @param x        Player X position
+     * @param z        Player Z position
+     * @return true if the player entered a new chunk (or world) since the last call
+     */
+    public static boolean enter(State state, FlagRegistry registry, double x, double z) {
+        return state.moveTo(registry,
+            FlagSpatialIndex.chunkCoordinate((int) Math.floor(x)),
+            FlagSpatialIndex.chunkCoordinate((int) Math.floor(z)));
+    }
+
+    /**
+     * Find the candidates a player is close enough to discover, and drop them
+     * from the candidate list. Does not mark them discovered.
+     *
+     * Reads only the snapshot, the given discoveries and the state, so it may
+     * run on any thread; calls for the same state are serialized.
+     *
+     * @param state      The player's discovery state
+     * @param registry   Registry of the world the player is in
+     * @param snapshot   Snapshot of that registry to collect candidates from
+     * @param discovered Tells whether the player already discovered a flag handle
+     * @param x          Player X position
+     * @param y          Player Y position
+     * @param z          Player Z position
+     * @return The flags within discovery range, usually none
+     */
+    public static List<FlagManager.FlagData> evaluate(State state, FlagRegistry registry, FlagSnapshot snapshot,
+                                                      IntPredicate discovered, double x, double y, double z) {
+        int chunkX = FlagSpatialIndex.chunkCoordinate((int) Math.floor(x));
+        int chunkZ = FlagSpatialIndex.chunkCoordinate((int) Math.floor(z));
+        synchronized (state) {
+            // Rebuild candidates only on chunk crossings or registry changes
+            if (!state.isCurrent(registry, snapshot.version(), chunkX, chunkZ)) {
+                state.reset(registry, snapshot.version(), chunkX, chunkZ);
+                snapshot.forEachFlagInChunkRadius(chunkX, chunkZ, NEIGHBOURHOOD_RADIUS_SQUARED, flag -> {
+                    if (!discovered.test(flag.handle())) {
+                        state.add(flag);
+                    }
+                });
+            }
+
+            List<FlagManager.FlagData> found = List.of();
+            for (int i = state.count - 1; i >= 0; i--) {
+                FlagManager.FlagData flag = state.candidates[i];
+                double dx = flag.x() - x;
+                double dy = flag.y() - y;
+                double dz = flag.z() - z;
+                if (dx * dx + dy * dy + dz * dz <= DISCOVERY_RADIUS_SQUARED) {
+                    state.removeAt(i);
+                    if (found.isEmpty()) {
+                        found = new ArrayList<>();
+                    }
+                    found.add(flag);
+                }
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Remove a player from presence tracking (disconnect or world change).
+     *
+     * @param state The player's discovery state
+     */
+    public static void leave(State state) {
+        if (state.presenceRegistry != null) {
+            state.presenceRegistry.getDormancy().playerLeft(state.presenceChunkX, state.presenceChunkZ);
+            state.presenceRegistry = null;
+        }
+        state.invalidate();
+    }
+
+    /**
+     * Per-player discovery state. Runtime only; rebuilt after login.
+     */
+    public static final class State {
+
+        // Registry and version the candidates were collected from (null = never)
+        private FlagRegistry registry;
+        private long version;
+
+        // Chunk the player was in when the candidates were collected
+        private int chunkX;
+        private int chunkZ;
+
+        // Undiscovered flags in the player's chunk neighbourhood
+        private FlagManager.FlagData[] candidates = new FlagManager.FlagData[4];
+        private int count;
+
+        // Registry and chunk the player is counted in for presence tracking (null = none)
+        private FlagRegistry presenceRegistry;
+        private int presenceChunkX;
+        private int presenceChunkZ;
+
+        /**
+         * Move the player's presence to a chunk.
+         *
+         * @return true if the chunk or world differs from the previous one
+         */
+        boolean moveTo(FlagRegistry registry, int chunkX, int chunkZ) {
+            if (this.presenceRegistry == registry
+                && this.presenceChunkX == chunkX && this.presenceChunkZ == chunkZ) {
+                return false;
+            }
+
+            if (this.presenceRegistry == registry) {
+                registry.getDormancy().playerMoved(this.presenceChunkX, this.presenceChunkZ, chunkX, chunkZ);
+            } else {
+                if (this.presenceRegistry != null) {
+                    this.presenceRegistry.getDormancy().playerLeft(this.presenceChunkX, this.presenceChunkZ);
+                }
+                registry.getDormancy().playerEntered(chunkX, chunkZ);
+            }
+            this.presenceRegistry = registry;
+            this.presenceChunkX = chunkX;
+            this.presenceChunkZ = chunkZ;
+            return true;
+        }
+
+        boolean isCurrent(FlagRegistry registry, long version, int chunkX, int chunkZ) {
+            return this.registry == registry && this.version == version
+                && this.chunkX == chunkX && this.chunkZ == chunkZ;
+        }
+
+        void reset(FlagRegistry registry, long version, int chunkX, int chunkZ) {
+            Arrays.fill(this.candidates, 0, this.count, null);
+            this.count = 0;
+            this.registry = registry;
+            this.version = version;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        void add(FlagManager.FlagData flag) {
+            if (this.count == this.candidates.length) {
+                this.candidates = Arrays.copyOf(this.candidates, this.count * 2);
+            }
+            this.candidates[this.count++] = flag;
+        }
+
+        void removeAt(int index) {
+            this.candidates[index] = this.candidates[--this.count];
+            this.candidates[this.count] = null;
+        }
+
+        /**
+         * Forget the collected candidates so the next check rebuilds them.
+         */
+        public synchronized void invalidate() {
+            this.reset(null, 0L, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Per-player queue that coalesces discovery notifications
+ */
+package pickleflag;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discoveries waiting to be announced to one player.
+ *
+ * A player who teleports or flies into a flag-dense area can discover
+ * dozens of flags in a single tick. Instead of one notification each, the
+ * discoveries are queued here and announced together: the first discovery
+ * opens a short window, and once it has passed the player gets a single
+ * summary naming the first few flags and counting the rest. However many
+ * flags are found at once, a player receives at most one discovery
+ * notification per window.
+ *
+ * Runtime only, held by PlayerFlagData. Used on the world thread.
+ */
+public final class FlagDiscoveryNotices {
+
+    // System property: milliseconds discoveries are collected before they are announced
+    private static final String WINDOW_PROPERTY = "pickleflag.discoveryNoticeMillis";
+
+    // Time from the first queued discovery to the summary
+    static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong(WINDOW_PROPERTY, 500L));
+
+    // Flag names listed in a summary; the rest are counted
+    static final int NAMES_SHOWN = 3;
+
+    // Names of the queued flags, up to NAMES_SHOWN
+    private final List<String> names = new ArrayList<>(NAMES_SHOWN);
+
+    // Number of queued flags
+    private int count;
+
+    // When the first queued flag was discovered (System.nanoTime)
+    private long openedAt;
+
+    /**
+     * Queue a discovery.
+     *
+     * @param flag     The flag discovered
+     * @param nowNanos Current System.nanoTime()
+     */
+    public void add(FlagManager.FlagData flag, long nowNanos) {
+        if (this.count == 0) {
+            this.openedAt = nowNanos;
+        }
+        if (this.names.size() < NAMES_SHOWN) {
+            this.names.add(flag.name());
+        }
+        this.count++;
+    }
+
+    /**
+     * Announce the queued discoveries if their window has passed.
+     *
+     * @param player   Player to notify
+     * @param nowNanos Current System.nanoTime()
+     * @return Number of discoveries announced, 0 if nothing was sent
+     */
+    public int flush(Player player, long nowNanos) {
+        if (this.count == 0 || nowNanos - this.openedAt < WINDOW_NANOS) {
+            return 0;
+        }
+        player.sendMessage(Message.raw(this.summary()));
+        int announced = this.count;
+        this.clear();
+        return announced;
+    }
+
+    /**
+     * Drop the queued discoveries without announcing them (player left).
+     */
+    public void clear() {
+        this.names.clear();
+        this.count = 0;
+    }
+
+    private String summary() {
+        if (this.count == 1) {
+            return "Pickle Flag discovered: " + this.names.get(0);
+        }
+        StringBuilder summary = new StringBuilder()
+            .append(this.count).append(" Pickle Flags discovered: ")
+            .append(String.join(", ", this.names));
+        if (this.count > this.names.size()) {
+            summary.append(" and ").append(this.count - this.names.size()).append(" more");
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Runs proximity discovery off the world thread
+ */
+package pickleflag;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Evaluates FlagDiscovery for all players of a world in parallel, off the
+ * world thread.
+ *
+ * Each tick is handled in three phases:
+ * 1. On the world thread, FlagDiscoverySystem hands every player's position
+ *    to probe(), together with a view of their discoveries. The first probe
+ *    of a tick takes the registry snapshot and queues the end of the pass.
+ * 2. Once the tick is over, the pass is evaluated on a fork-join pool: large
+ *    passes are split across cores, small ones run on one pool thread.
+ *    Evaluation only reads the snapshot, the discovery views and each
+ *    player's candidate list.
+ * 3. The discoveries found are handed back to the world thread with
+ *    World.execute, where they are checked again (the player may have left,
+ *    the flag may be gone) and applied.
+ *
+ * Only one pass per world is evaluated at a time. If the previous pass has
+ * not been applied when a tick ends, that tick's probes are dropped; the
+ * next tick probes again from fresh positions, so a slow pass delays
+ * discoveries by a tick instead of queueing work behind the world.
+ */
+public final class FlagDiscoveryScheduler {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    // Passes with fewer probes run on one pool thread; splitting them costs more than it saves
+    static final int PARALLEL_THRESHOLD = 32;
+
+    // Evaluates passes
+    private final ForkJoinPool pool;
+
+    // Records pass timings and skipped ticks
+    private final FlagMetrics metrics;
+
+    // Called on the world thread for every flag a player discovers
+    private final BiConsumer<PlayerFlagData, FlagManager.FlagData> onDiscovered;
+
+    // Map of world name -> pass collecting the current tick's probes
+    private final Map<String, Pass> collecting = new ConcurrentHashMap<>();
+
+    // Worlds whose last pass is still being evaluated or applied
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create a scheduler with its own fork-join pool.
+     *
+     * @param threads      Pool parallelism
+     * @param metrics      Records pass timings and skipped ticks
+     * @param onDiscovered Called on the world thread for every flag a player discovers,
+     *                     after it was marked discovered
+     */
+    public FlagDiscoveryScheduler(int threads, FlagMetrics metrics,
+                                  BiConsumer<PlayerFlagData, FlagManager.FlagData> onDiscovered) {
+        this.pool = new ForkJoinPool(threads, pool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("PickleFlag-Discovery-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.metrics = metrics;
+        this.onDiscovered = onDiscovered;
+    }
+
+    /**
+     * Add a player to the current tick's pass for their world. Call on the world thread.
+     *
+     * @param world    World the player is in
+     * @param registry Registry of that world
+     * @param ref      Reference to the player entity
+     * @param data     The player's flag data
+     * @param x        Player X position
+     * @param y        Player Y position
+     * @param z        Player Z position
+     */
+    public void probe(World world, FlagRegistry registry, Ref<EntityStore> ref, PlayerFlagData data,
+                      double x, double y, double z) {
+        Pass pass = this.collecting.get(world.getName());
+        if (pass == null) {
+            pass = new Pass(world, registry, registry.snapshot());
+            this.collecting.put(world.getName(), pass);
+            Pass started = pass;
+            world.execute(() -> this.submit(started));
+        }
+        pass.probes.add(new Probe(ref, data, data.getDiscoveredFlagsView(), x, y, z));
+    }
+
+    /**
+     * Stop evaluating passes. Passes already running finish on their own.
+     */
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Phase 2: close a pass once its tick is over and evaluate it on the pool.
+     */
+    private void submit(Pass pass) {
+        String worldName = pass.world.getName();
+        this.collecting.remove(worldName, pass);
+        if (!this.running.add(worldName)) {
+            this.metrics.recordDiscoveryPassSkipped();
+            return;
+        }
+        try {
+            CompletableFuture.supplyAsync(() -> this.evaluate(pass), this.pool)
+                .whenComplete((found, error) -> pass.world.execute(() -> {
+                    try {
+                        if (error != null) {
+                            LOGGER.atWarning().withCause(error).log("Flag discovery failed in world %s", worldName);
+                        } else {
+                            this.apply(pass, found);
+                        }
+                    } finally {
+                        this.running.remove(worldName);
+                    }
+                }));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            this.running.remove(worldName);
+        }
+    }
+
+    private List<Discovery> evaluate(Pass pass) {
+        long start = System.nanoTime();
+        Stream<Probe> probes = pass.probes.size() >= PARALLEL_THRESHOLD
+            ? pass.probes.parallelStream()
+            : pass.probes.stream();
+        List<Discovery> found = probes
+            .map(probe -> new Discovery(probe, FlagDiscovery.evaluate(probe.data().getDiscoveryState(),
+                pass.registry, pass.snapshot, probe.discovered()::get, probe.x(), probe.y(), probe.z())))
+            .filter(discovery -> !discovery.flags().isEmpty())
+            .toList();
+        this.metrics.recordDiscoveryPass(System.nanoTime() - start);
+        return found;
+    }
+
+    /**
+     * Phase 3: mark the discoveries on the world thread.
+     */
+    private void apply(Pass pass, List<Discovery> found) {
+        for (Discovery discovery : found) {
+            Probe probe = discovery.probe();
+            if (!probe.ref().isValid()) {
+                continue;
+            }
+            for (FlagManager.FlagData flag : discovery.flags()) {
+                if (probe.data().hasDiscoveredFlag(flag.handle()) || pass.registry.getFlag(flag.handle()) == null) {
+                    continue;
+                }
+                probe.data().addDiscoveredFlag(flag.handle());
+                this.onDiscovered.accept(probe.data(), flag);
+            }
+        }
+    }
+
+    /**
+     * Probes collected for one world during one tick.
+     */
+    private static final class Pass {
+
+        private final World world;
+        private final FlagRegistry registry;
+        private final FlagSnapshot snapshot;
+        private final List<Probe> probes = new ArrayList<>();
+
+        Pass(World world, FlagRegistry registry, FlagSnapshot snapshot) {
+            this.world = world;
+            this.registry = registry;
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * One player's position and discoveries, captured on the world thread.
+     */
+    private record Probe(Ref<EntityStore> ref, PlayerFlagData data, BitSet discovered,
+                         double x, double y, double z) {
+    }
+
+    /**
+     * Flags one probe came close enough to discover.
+     */
+    private record Discovery(Probe probe, List<FlagManager.FlagData> flags) {
+    }
+}
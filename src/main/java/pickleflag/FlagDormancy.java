@@ -0,0 +1,217 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Adaptive tick scheduling for flags far from any player
+ */
+package pickleflag;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.modules.time.WorldTimeResource;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.BlockChunk;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks where players are in a world so idle flags can stop ticking.
+ *
+ * Flags with no player within their detection radius back off exponentially
+ * until they only tick every MAX_SLEEP_SECONDS, and are recorded as dormant.
+ * When a player walks into a chunk near a dormant flag, the flag's next tick
+ * is rescheduled to run immediately, so it wakes up without having to poll.
+ *
+ * One instance belongs to each FlagRegistry. Player chunk counts are updated
+ * by FlagDiscoverySystem on chunk crossings and read by flag ticks.
+ */
+public class FlagDormancy {
+
+    // Longest back-off between ticks of an idle flag
+    static final long MAX_SLEEP_SECONDS = 320;
+
+    // Horizontal distance (blocks) within which a player keeps a flag awake
+    static final int DETECTION_RADIUS = 50;
+
+    // Chunks checked on each side of a flag's chunk; farther chunks are never in range
+    static final int DETECTION_CHUNK_RADIUS = (DETECTION_RADIUS + (1 << FlagSpatialIndex.CHUNK_BITS) - 1)
+        >> FlagSpatialIndex.CHUNK_BITS;
+
+    // Map of chunk key -> number of players standing in that chunk
+    private final Map<Long, Integer> playerChunks = new ConcurrentHashMap<>();
+
+    // Handles of flags currently backed off
+    private final HandleTable<Boolean> dormantFlags = new HandleTable<>();
+
+    // Loaded flags of the same world, told about rescheduled ticks
+    private final FlagSectionIndex sectionIndex;
+
+    /**
+     * Create the dormancy tracker for a world.
+     *
+     * @param sectionIndex The world's loaded flags by chunk section
+     */
+    public FlagDormancy(FlagSectionIndex sectionIndex) {
+        this.sectionIndex = sectionIndex;
+    }
+
+    /**
+     * Record that a player moved between chunks of this world.
+     *
+     * @param fromChunkX Previous chunk X
+     * @param fromChunkZ Previous chunk Z
+     * @param toChunkX   New chunk X
+     * @param toChunkZ   New chunk Z
+     */
+    public void playerMoved(int fromChunkX, int fromChunkZ, int toChunkX, int toChunkZ) {
+        this.playerLeft(fromChunkX, fromChunkZ);
+        this.playerEntered(toChunkX, toChunkZ);
+    }
+
+    /**
+     * Record that a player appeared in a chunk of this world.
+     */
+    public void playerEntered(int chunkX, int chunkZ) {
+        this.playerChunks.merge(FlagSpatialIndex.chunkKey(chunkX, chunkZ), 1, Integer::sum);
+    }
+
+    /**
+     * Record that a player left a chunk of this world.
+     */
+    public void playerLeft(int chunkX, int chunkZ) {
+        this.playerChunks.computeIfPresent(FlagSpatialIndex.chunkKey(chunkX, chunkZ),
+            (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Check whether any player stands within the detection radius of a flag.
+     * Players are only tracked by chunk, so this checks every chunk with at
+     * least one block within DETECTION_RADIUS of the flag.
+     *
+     * @param x Flag world X coordinate
+     * @param z Flag world Z coordinate
+     * @return true if a player is in one of the chunks in range
+     */
+    public boolean isPlayerNear(int x, int z) {
+        if (this.playerChunks.isEmpty()) {
+            return false;
+        }
+
+        int chunkX = FlagSpatialIndex.chunkCoordinate(x);
+        int chunkZ = FlagSpatialIndex.chunkCoordinate(z);
+        for (int dx = -DETECTION_CHUNK_RADIUS; dx <= DETECTION_CHUNK_RADIUS; dx++) {
+            for (int dz = -DETECTION_CHUNK_RADIUS; dz <= DETECTION_CHUNK_RADIUS; dz++) {
+                if (inRange(x, z, chunkX + dx, chunkZ + dz)
+                    && this.playerChunks.containsKey(FlagSpatialIndex.chunkKey(chunkX + dx, chunkZ + dz))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mark a flag as dormant so the next player to come near wakes it.
+     */
+    public void markDormant(int handle) {
+        this.dormantFlags.put(handle, Boolean.TRUE);
+    }
+
+    /**
+     * Clear a flag's dormant mark (it is awake or was removed).
+     */
+    public void clearDormant(int handle) {
+        this.dormantFlags.remove(handle);
+    }
+
+    /**
+     * Wake every dormant flag within detection range of a chunk a player just entered.
+     * Rescheduling happens on the world thread.
+     *
+     * @param world    The world the player is in
+     * @param snapshot Registry snapshot for the world
+     * @param chunkX   Chunk X the player entered
+     * @param chunkZ   Chunk Z the player entered
+     */
+    public void wakeNear(World world, FlagSnapshot snapshot, int chunkX, int chunkZ) {
+        if (this.dormantFlags.isEmpty()) {
+            return;
+        }
+
+        // The square of chunks around the player, narrowed to the flags whose range reaches their chunk
+        int squareRadiusSquared = 2 * DETECTION_CHUNK_RADIUS * DETECTION_CHUNK_RADIUS;
+        snapshot.forEachFlagInChunkRadius(chunkX, chunkZ, squareRadiusSquared, flag -> {
+            if (inRange(flag.x(), flag.z(), chunkX, chunkZ) && this.dormantFlags.remove(flag.handle()) != null) {
+                world.execute(() -> this.scheduleImmediateTick(world, flag));
+            }
+        });
+    }
+
+    /**
+     * Check whether any block of a chunk lies within DETECTION_RADIUS of a flag,
+     * measured from the flag to the nearest edge of the chunk.
+     *
+     * @param x      Flag world X coordinate
+     * @param z      Flag world Z coordinate
+     * @param chunkX Chunk X coordinate
+     * @param chunkZ Chunk Z coordinate
+     */
+    static boolean inRange(int x, int z, int chunkX, int chunkZ) {
+        long dx = distanceToChunk(x, chunkX);
+        long dz = distanceToChunk(z, chunkZ);
+        return dx * dx + dz * dz <= (long) DETECTION_RADIUS * DETECTION_RADIUS;
+    }
+
+    /**
+     * Distance along one axis from a block coordinate to the nearest block of a chunk (0 inside it).
+     */
+    private static int distanceToChunk(int blockCoordinate, int chunkCoordinate) {
+        int min = chunkCoordinate << FlagSpatialIndex.CHUNK_BITS;
+        int max = min + (1 << FlagSpatialIndex.CHUNK_BITS) - 1;
+        return blockCoordinate < min ? min - blockCoordinate : Math.max(0, blockCoordinate - max);
+    }
+
+    /**
+     * Get the tick interval for a flag that has been idle for the given number of ticks.
+     *
+     * @param baseSeconds Normal tick interval
+     * @param idleTicks   Consecutive ticks with no player near
+     * @return Seconds until the next tick
+     */
+    static long backoffSeconds(long baseSeconds, int idleTicks) {
+        if (idleTicks <= 0) {
+            return baseSeconds;
+        }
+        long shifted = baseSeconds << Math.min(idleTicks, 16);
+        return Math.min(shifted, MAX_SLEEP_SECONDS);
+    }
+
+    /**
+     * Reschedule a flag's block tick to run now. Does nothing if its chunk is unloaded;
+     * the flag will be scheduled again when the chunk loads.
+     */
+    private void scheduleImmediateTick(World world, FlagManager.FlagData flag) {
+        Ref<ChunkStore> chunkRef = FlagBlocks.getChunkRef(world, flag.x(), flag.z());
+        if (chunkRef == null) {
+            return;
+        }
+
+        Store<ChunkStore> chunkStore = world.getChunkStore().getStore();
+        BlockChunk blockChunk = chunkStore.getComponent(chunkRef, BlockChunk.getComponentType());
+        if (blockChunk == null) {
+            return;
+        }
+
+        WorldTimeResource timeResource = world.getEntityStore().getStore()
+            .getResource(WorldTimeResource.getResourceType());
+        int slot = ChunkUtil.indexBlock(flag.x() & 31, flag.y(), flag.z() & 31);
+        blockChunk.getSectionAtBlockY(flag.y()).scheduleTick(slot, timeResource.getGameTime());
+
+        FlagSectionIndex.Section section = this.sectionIndex.get(FlagSpatialIndex.chunkCoordinate(flag.x()),
+            FlagSpatialIndex.chunkCoordinate(flag.y()), FlagSpatialIndex.chunkCoordinate(flag.z()));
+        if (section != null) {
+            section.scheduled(slot, timeResource.getGameTime());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Typed change events published by flag registries
+ */
+package pickleflag;
+
+/**
+ * Change to a world's flag registry, published through FlagManager.subscribe.
+ *
+ * Events are delivered synchronously on the thread that made the change,
+ * after the registry has been updated. Listeners must be cheap and
+ * thread-safe, and should hand any world work off with World.execute.
+ */
+public sealed interface FlagEvent {
+
+    /**
+     * Name of the world whose registry changed.
+     */
+    String worldName();
+
+    /**
+     * The flag after the change (or the removed flag, for Removed).
+     */
+    FlagManager.FlagData flag();
+
+    /**
+     * A flag was registered for the first time.
+     */
+    record Added(String worldName, FlagManager.FlagData flag) implements FlagEvent {
+    }
+
+    /**
+     * A flag's display name changed.
+     */
+    record Renamed(String worldName, FlagManager.FlagData previous, FlagManager.FlagData flag)
+        implements FlagEvent {
+    }
+
+    /**
+     * A flag's position changed.
+     */
+    record Moved(String worldName, FlagManager.FlagData previous, FlagManager.FlagData flag)
+        implements FlagEvent {
+    }
+
+    /**
+     * A flag was removed from the registry.
+     */
+    record Removed(String worldName, FlagManager.FlagData flag) implements FlagEvent {
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Server-wide table of compact flag handles
+ */
+package pickleflag;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns every flag UUID a small int handle, shared by all worlds.
+ *
+ * Handles are dense (0, 1, 2, ...) and never reused while the server runs,
+ * so they can index arrays and bitsets directly. Everything inside the
+ * plugin refers to flags by handle; UUIDs and their string form only appear
+ * at the boundaries (block storage, commands, UI and map marker IDs).
+ *
+ * Once load() has been called the table is also an on-disk ordinal table:
+ * each new UUID is appended to the file in handle order, so a handle means
+ * the same flag after a restart. Player discoveries are saved as bitsets
+ * over these handles (see PlayerFlagData), tagged with the table ID so a
+ * bitset is never read against a different table. Appends are forced to
+ * disk by sync() before a bitset that may use them is saved, so a saved bit
+ * never refers to a handle the file could lose in a crash.
+ */
+public final class FlagIds {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    // Returned by find() and parse() for unknown or malformed IDs
+    public static final int NONE = -1;
+
+    // Ordinal file header: magic ("PFID"), format version, table ID
+    private static final int FILE_MAGIC = 0x50464944;
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 16;
+    private static final int RECORD_BYTES = 16;
+
+    // Map of flag UUID -> handle
+    private final Map<UUID, Integer> handles = new ConcurrentHashMap<>();
+
+    // Handle -> flag UUID, replaced (never mutated in place) when it grows
+    private volatile UUID[] uuids = new UUID[1024];
+
+    // Next handle to assign (guarded by this)
+    private int nextHandle;
+
+    // Identifies the on-disk ordinal table (null while the table is memory only)
+    private volatile UUID tableId;
+
+    // Ordinal file that new handles are appended to (guarded by this, null = not persisted)
+    private FileChannel file;
+
+    // True while appended records may not have reached the disk yet (guarded by this)
+    private boolean unforced;
+
+    /**
+     * Load the ordinal table from disk, creating the file if it does not exist,
+     * and append every handle assigned from now on.
+     * Must be called before any handle is assigned.
+     *
+     * @param path Ordinal table file
+     * @throws IOException if the file cannot be read or created
+     */
+    public synchronized void load(Path path) throws IOException {
+        if (this.nextHandle != 0 || this.file != null) {
+            throw new IllegalStateException("Flag ordinal table is already in use");
+        }
+
+        Files.createDirectories(path.getParent());
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.size() < HEADER_BYTES) {
+                // New (or header-truncated, hence empty) table
+                UUID id = UUID.randomUUID();
+                header.putInt(FILE_MAGIC).putInt(FILE_VERSION)
+                    .putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                this.tableId = id;
+            } else {
+                channel.read(header, 0);
+                header.flip();
+                if (header.getInt() != FILE_MAGIC || header.getInt() != FILE_VERSION) {
+                    throw new IOException("Not a flag ordinal table: " + path);
+                }
+                this.tableId = new UUID(header.getLong(), header.getLong());
+                this.readRecords(channel);
+            }
+
+            // Drop a partially written trailing record left by a crash
+            channel.truncate(HEADER_BYTES + (long) this.nextHandle * RECORD_BYTES);
+            channel.position(channel.size());
+            this.file = channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            this.tableId = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Flush and close the ordinal file. Handles keep working in memory.
+     */
+    public synchronized void close() throws IOException {
+        if (this.file != null) {
+            try {
+                this.file.force(false);
+            } finally {
+                this.file.close();
+                this.file = null;
+            }
+        }
+    }
+
+    /**
+     * Force every appended handle to disk. Call before saving anything that
+     * refers to handles by ordinal.
+     *
+     * If forcing fails the table stops being persisted, as for a failed append.
+     *
+     * @return true if the table is persisted and up to date on disk, false if
+     *         handles must be saved as UUIDs
+     */
+    public synchronized boolean sync() {
+        if (this.file != null && this.unforced) {
+            try {
+                this.file.force(false);
+                this.unforced = false;
+            } catch (IOException e) {
+                this.stopPersisting(e);
+            }
+        }
+        return this.tableId != null;
+    }
+
+    /**
+     * Get the ID of the on-disk ordinal table.
+     *
+     * @return The table ID, or null if handles are not persisted
+     */
+    public UUID getTableId() {
+        return this.tableId;
+    }
+
+    /**
+     * Read every whole UUID record after the header, in handle order.
+     */
+    private void readRecords(FileChannel channel) throws IOException {
+        long count = (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * 1024);
+        long position = HEADER_BYTES;
+        long end = HEADER_BYTES + count * RECORD_BYTES;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Flag ordinal table ended early");
+                }
+            }
+            position += buffer.flip().remaining();
+            while (buffer.hasRemaining()) {
+                this.assign(new UUID(buffer.getLong(), buffer.getLong()));
+            }
+        }
+    }
+
+    /**
+     * Get the handle for a flag UUID, assigning a new one on first use.
+     *
+     * @param uuid The flag's UUID
+     * @return The flag's handle
+     */
+    public int intern(UUID uuid) {
+        Integer handle = this.handles.get(uuid);
+        if (handle != null) {
+            return handle;
+        }
+
+        synchronized (this) {
+            handle = this.handles.get(uuid);
+            if (handle != null) {
+                return handle;
+            }
+
+            this.append(uuid);
+            return this.assign(uuid);
+        }
+    }
+
+    /**
+     * Give a UUID the next handle. Caller holds the lock.
+     */
+    private int assign(UUID uuid) {
+        int assigned = this.nextHandle++;
+        UUID[] table = this.uuids;
+        if (assigned == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[assigned] = uuid;
+        this.uuids = table;
+        this.handles.put(uuid, assigned);
+        return assigned;
+    }
+
+    /**
+     * Append a new UUID to the ordinal file. Caller holds the lock.
+     *
+     * The record is not forced here; sync() does that before a save needs it.
+     * If the write fails the table stops being persisted: later handles would
+     * no longer line up with the file, so the table ID is dropped and players
+     * fall back to saving UUIDs.
+     */
+    private void append(UUID uuid) {
+        if (this.file == null) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES)
+            .putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).flip();
+        try {
+            while (record.hasRemaining()) {
+                this.file.write(record);
+            }
+            this.unforced = true;
+        } catch (IOException e) {
+            this.stopPersisting(e);
+        }
+    }
+
+    /**
+     * Stop persisting the table after a failed write. Caller holds the lock.
+     */
+    private void stopPersisting(IOException e) {
+        LOGGER.atSevere().withCause(e).log("Failed to write flag ordinal table; discoveries will be saved as UUIDs");
+        this.tableId = null;
+        try {
+            this.file.close();
+        } catch (IOException ignored) {
+            // Already failing; the original error is what matters
+        }
+        this.file = null;
+    }
+
+    /**
+     * Get the handle for a flag UUID without assigning one.
+     *
+     * @param uuid The flag's UUID
+     * @return The handle, or NONE if the UUID was never registered
+     */
+    public int find(UUID uuid) {
+        Integer handle = this.handles.get(uuid);
+        return handle != null ? handle : NONE;
+    }
+
+    /**
+     * Resolve a flag ID string (from a command or the UI) to a handle.
+     *
+     * @param id UUID string
+     * @return The handle, or NONE if the ID is malformed or unknown
+     */
+    public int parse(String id) {
+        try {
+            return this.find(UUID.fromString(id));
+        } catch (IllegalArgumentException e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * Get the UUID behind a handle.
+     *
+     * @param handle A handle returned by intern()
+     * @return The flag's UUID
+     */
+    public UUID uuidOf(int handle) {
+        return this.uuids[handle];
+    }
+
+    /**
+     * Get the string form of a flag's UUID, for commands, UI and logs.
+     *
+     * @param handle A handle returned by intern()
+     * @return The UUID string
+     */
+    public String toString(int handle) {
+        return this.uuids[handle].toString();
+    }
+
+    /**
+     * Number of handles assigned so far (the upper bound for handle-indexed arrays).
+     */
+    public synchronized int size() {
+        return this.nextHandle;
+    }
+}
@@ -5,80 +5,209 @@
 package pickleflag;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Central manager for tracking all placed Pickle Pirate Flags.
  *
  * This class maintains:
- * - A registry of all placed flags with their positions
+ * - One FlagRegistry per world, holding that world's flags and spatial index
+ * - The server-wide FlagIds table mapping flag UUIDs to compact int handles
  * - Player flag data references for quick lookup
+ * - Subscribers to flag change events from every registry
+ * - FlagMetrics counters shared by every world
  *
  * The FlagManager is the single source of truth for flag positions,
- * which is used by the map marker provider to display flags on the map.
+ * which is used by the map marker providers to display flags on the map.
+ * Each world's marker provider is bound to that world's registry only.
+ *
+ * All maps are concurrent: registries and player data are touched from
+ * several world threads, UI handlers and async commands at once.
  */
 public class FlagManager {
 
-    // Map of flag UUID -> flag data
-    private final Map<String, FlagData> flagDataMap = new HashMap<>();
+    // Flag UUID <-> handle table shared by every world
+    private final FlagIds flagIds = new FlagIds();
+
+    // Map of world name -> flag registry for that world
+    private final Map<String, FlagRegistry> registries = new ConcurrentHashMap<>();
 
     // Map of player UUID -> player flag data
-    private final Map<UUID, PlayerFlagData> playerDataMap = new HashMap<>();
+    private final Map<UUID, PlayerFlagData> playerDataMap = new ConcurrentHashMap<>();
+
+    // Listeners notified of every change in every registry
+    private final List<Consumer<FlagEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    // Server-wide instrumentation
+    private final FlagMetrics metrics = new FlagMetrics();
+
+    /**
+     * Get the flag registry for a world, creating it on first use.
+     *
+     * @param worldName Name of the world
+     * @return The world's flag registry
+     */
+    public FlagRegistry getRegistry(String worldName) {
+        return this.registries.computeIfAbsent(worldName,
+            name -> new FlagRegistry(name, this.flagIds, this::publish));
+    }
+
+    /**
+     * Start collecting changes to a world's registry, to be applied as one
+     * version by FlagBatch.commit().
+     *
+     * @param worldName Name of the world
+     * @return An empty batch for the world's registry
+     */
+    public FlagBatch batch(String worldName) {
+        return new FlagBatch(this.getRegistry(worldName));
+    }
+
+    /**
+     * Get the server-wide flag handle table.
+     */
+    public FlagIds getFlagIds() {
+        return this.flagIds;
+    }
+
+    /**
+     * Get the server-wide metrics.
+     */
+    public FlagMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Get all world registries.
+     *
+     * @return Collection of every world's registry
+     */
+    public Collection<FlagRegistry> getRegistries() {
+        return this.registries.values();
+    }
 
     /**
-     * Register a new flag at the given position.
+     * Find the registry that holds a flag, searching every world.
+     * Used at the command boundary where only the flag ID is known.
      *
-     * @param id   Unique identifier for the flag
-     * @param name Display name for the flag
-     * @param x    World X coordinate
-     * @param y    World Y coordinate
-     * @param z    World Z coordinate
+     * @param handle Handle of the flag
+     * @return The registry containing the flag, or null if not found
      */
-    public void addFlag(String id, String name, int x, int y, int z) {
-        this.flagDataMap.put(id, new FlagData(id, name, x, y, z));
+    public FlagRegistry findRegistry(int handle) {
+        for (FlagRegistry registry : this.registries.values()) {
+            if (registry.getFlag(handle) != null) {
+                return registry;
+            }
+        }
+        return null;
     }
 
     /**
-     * Remove a flag from the registry.
+     * Get one page of a world's flags in name order.
      *
-     * @param id The UUID of the flag to remove
+     * @param worldName Name of the world
+     * @param offset    Position of the first flag on the page
+     * @param limit     Maximum number of flags on the page
+     * @return The page, with the world's total flag count
      */
-    public void removeFlag(String id) {
-        this.flagDataMap.remove(id);
+    public FlagPage listFlags(String worldName, int offset, int limit) {
+        FlagRegistry registry = this.registries.get(worldName);
+        if (registry == null) {
+            return FlagPage.EMPTY;
+        }
+        FlagNameIndex index = registry.nameIndex();
+        int from = Math.min(offset, index.size());
+        return new FlagPage(index.range(from, from + limit), offset, index.size());
     }
 
     /**
-     * Get data for a specific flag.
+     * Get one page of a world's flags whose names start with a prefix, in name order.
      *
-     * @param id The UUID of the flag
-     * @return The flag data, or null if not found
+     * @param worldName Name of the world
+     * @param prefix    Name prefix, compared case-insensitively
+     * @param offset    Position of the first match on the page
+     * @param limit     Maximum number of flags on the page
+     * @return The page, with the total number of matches
      */
-    public FlagData getFlag(String id) {
-        return this.flagDataMap.get(id);
+    public FlagPage searchFlags(String worldName, String prefix, int offset, int limit) {
+        FlagRegistry registry = this.registries.get(worldName);
+        if (registry == null) {
+            return FlagPage.EMPTY;
+        }
+        FlagNameIndex index = registry.nameIndex();
+        int start = index.prefixStart(prefix);
+        int end = index.prefixEnd(prefix);
+        int from = start + Math.min(offset, end - start);
+        return new FlagPage(index.range(from, Math.min(from + limit, end)), offset, end - start);
     }
 
     /**
-     * Get all registered flags.
+     * Find a world's flag by its exact name, ignoring case.
+     * If several flags share the name, the one with the lowest handle is returned.
      *
-     * @return Collection of all flag data
+     * @param worldName Name of the world
+     * @param name      Flag name
+     * @return The flag, or null if none has that name
      */
-    public Collection<FlagData> getAllFlags() {
-        return this.flagDataMap.values();
+    public FlagData findFlagByName(String worldName, String name) {
+        FlagRegistry registry = this.registries.get(worldName);
+        if (registry == null) {
+            return null;
+        }
+        FlagNameIndex index = registry.nameIndex();
+        int first = index.prefixStart(name);
+        for (FlagData flag : index.range(first, first + 1)) {
+            if (flag.name().equalsIgnoreCase(name)) {
+                return flag;
+            }
+        }
+        return null;
     }
 
     /**
-     * Rename a flag.
+     * Find a world's flags closest to a position, by horizontal distance.
      *
-     * @param id   The UUID of the flag
-     * @param name The new name
-     */
-    public void renameFlag(String id, String name) {
-        FlagData existing = this.flagDataMap.get(id);
-        if (existing != null) {
-            this.flagDataMap.put(id, new FlagData(
-                existing.id(), name, existing.x(), existing.y(), existing.z()));
+     * @param worldName Name of the world
+     * @param x         World X coordinate
+     * @param z         World Z coordinate
+     * @param count     Maximum number of flags to return
+     * @return Up to count flags, nearest first
+     */
+    public List<FlagData> nearestFlags(String worldName, int x, int z, int count) {
+        FlagRegistry registry = this.registries.get(worldName);
+        return registry != null ? registry.snapshot().nearest(x, z, count) : List.of();
+    }
+
+    /**
+     * Subscribe to flag change events from every world.
+     * Events arrive on the thread that made the change; see FlagEvent.
+     *
+     * @param listener Called once per change
+     * @return Runnable that removes the subscription
+     */
+    public Runnable subscribe(Consumer<FlagEvent> listener) {
+        this.listeners.add(listener);
+        return () -> this.listeners.remove(listener);
+    }
+
+    /**
+     * Get the number of current subscriptions.
+     */
+    int listenerCount() {
+        return this.listeners.size();
+    }
+
+    /**
+     * Deliver an event to every subscriber.
+     */
+    private void publish(FlagEvent event) {
+        for (Consumer<FlagEvent> listener : this.listeners) {
+            listener.accept(event);
         }
     }
 
@@ -114,12 +243,25 @@ public class FlagManager {
     /**
      * Record containing data about a placed flag.
      *
-     * @param id   Unique identifier
-     * @param name Display name
-     * @param x    World X coordinate
-     * @param y    World Y coordinate
-     * @param z    World Z coordinate
+     * @param handle Compact identifier assigned by FlagIds
+     * @param name   Display name
+     * @param x      World X coordinate
+     * @param y      World Y coordinate
+     * @param z      World Z coordinate
      */
-    public record FlagData(String id, String name, int x, int y, int z) {
+    public record FlagData(int handle, String name, int x, int y, int z) {
+    }
+
+    /**
+     * One page of a flag listing or search.
+     *
+     * @param flags  Flags on this page
+     * @param offset Position of the first flag on this page
+     * @param total  Number of flags across all pages
+     */
+    public record FlagPage(List<FlagData> flags, int offset, int total) {
+
+        // Page of a world that has no registry yet
+        static final FlagPage EMPTY = new FlagPage(List.of(), 0, 0);
     }
 }
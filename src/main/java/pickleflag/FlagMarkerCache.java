@@ -0,0 +1,200 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Prebuilt map markers for one world's flags
+ */
+package pickleflag;
+
+import com.hypixel.hytale.math.vector.Transform;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.protocol.packets.worldmap.ContextMenuItem;
+import com.hypixel.hytale.protocol.packets.worldmap.MapMarker;
+import com.hypixel.hytale.server.core.util.PositionUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of prebuilt map markers, one per flag, shared by every player.
+ *
+ * Everything a marker needs (ID string, position, MapMarker packet and context
+ * menu) depends only on the flag itself, so it is built once on first use and
+ * reused until a FlagEvent says the flag was renamed, moved or removed.
+ * Flag records are replaced on every change, so an entry built from a
+ * different record is never returned even if an event is still in flight.
+ *
+ * Cluster markers are cached the same way, one per FlagClusterTree cell,
+ * and rebuilt when the cell record is replaced. A flag that is added, moved
+ * or removed drops the cluster markers of every cell on its path, so cells
+ * that empty out do not stay in the cache.
+ */
+public final class FlagMarkerCache {
+
+    // Map marker icon (matches Phase 1 asset)
+    static final String DISCOVERED_ICON = "Pickle_Flag.png";
+
+    // Prefix for marker IDs sent to the client
+    static final String MARKER_ID_PREFIX = "PickleFlag-";
+
+    // Prefix for cluster marker IDs sent to the client
+    static final String CLUSTER_ID_PREFIX = "PickleFlagCluster-";
+
+    // Server-wide flag handle table, for marker ID strings
+    private final FlagIds flagIds;
+
+    // Map of flag handle -> prebuilt marker
+    private final HandleTable<Entry> entries = new HandleTable<>();
+
+    // Map of cluster cell key -> prebuilt cluster marker
+    private final Map<Long, Entry> clusterEntries = new ConcurrentHashMap<>();
+
+    /**
+     * Create an empty marker cache.
+     *
+     * @param flagIds Flag handle table used to build marker IDs
+     */
+    public FlagMarkerCache(FlagIds flagIds) {
+        this.flagIds = flagIds;
+    }
+
+    /**
+     * Get the prebuilt marker for a flag, building it if missing or stale.
+     *
+     * @param flag The flag to get a marker for
+     * @return The cached entry
+     */
+    public Entry get(FlagManager.FlagData flag) {
+        Entry entry = this.entries.get(flag.handle());
+        if (entry == null || entry.flag() != flag) {
+            entry = Entry.of(flag, this.flagIds.toString(flag.handle()));
+            this.entries.put(flag.handle(), entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Get the prebuilt cluster marker for a cell, building it if missing or stale.
+     *
+     * @param cell The cell to get a marker for
+     * @return The cached entry
+     */
+    public Entry getCluster(FlagClusterTree.Cell cell) {
+        Entry entry = this.clusterEntries.get(cell.key());
+        if (entry == null || entry.cell() != cell) {
+            entry = Entry.cluster(cell);
+            this.clusterEntries.put(cell.key(), entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Drop cached markers for flags that changed or were removed, and for
+     * the clusters whose counts changed with them.
+     *
+     * @param event A change in the cached world's registry
+     */
+    public void onFlagEvent(FlagEvent event) {
+        if (!(event instanceof FlagEvent.Added)) {
+            this.entries.remove(event.flag().handle());
+        }
+        if (event instanceof FlagEvent.Moved moved) {
+            this.removeClusters(moved.previous());
+        }
+        if (!(event instanceof FlagEvent.Renamed)) {
+            this.removeClusters(event.flag());
+        }
+    }
+
+    /**
+     * Drop the cluster markers of every cell containing a flag's position.
+     */
+    private void removeClusters(FlagManager.FlagData flag) {
+        if (this.clusterEntries.isEmpty()) {
+            return;
+        }
+        int chunkX = FlagSpatialIndex.chunkCoordinate(flag.x());
+        int chunkZ = FlagSpatialIndex.chunkCoordinate(flag.z());
+        for (int level = FlagClusterTree.MIN_LEVEL; level <= FlagClusterTree.MAX_LEVEL; level++) {
+            this.clusterEntries.remove(FlagClusterTree.cellKey(level, chunkX >> level, chunkZ >> level));
+        }
+    }
+
+    /**
+     * Number of cluster markers cached.
+     */
+    int clusterCount() {
+        return this.clusterEntries.size();
+    }
+
+    /**
+     * Prebuilt marker data for a single flag or a cluster of flags.
+     *
+     * @param flag     The flag the marker was built from (null for a cluster)
+     * @param cell     The cell the cluster marker was built from (null for a flag)
+     * @param markerId Marker ID sent to the client
+     * @param name     Marker name shown on the map
+     * @param position Marker position
+     * @param marker   Prebuilt marker packet
+     */
+    public record Entry(FlagManager.FlagData flag, FlagClusterTree.Cell cell, String markerId, String name,
+                        Vector3d position, MapMarker marker) {
+
+        static Entry of(FlagManager.FlagData flag, String flagId) {
+            String markerId = MARKER_ID_PREFIX + flagId;
+            return new Entry(
+                flag,
+                null,
+                markerId,
+                flag.name(),
+                new Vector3d(flag.x(), flag.y(), flag.z()),
+                new MapMarker(
+                    markerId,
+                    flag.name(),
+                    DISCOVERED_ICON,
+                    PositionUtil.toTransformPacket(new Transform(flag.x(), flag.y(), flag.z())),
+                    createContextMenuItems(flagId)
+                )
+            );
+        }
+
+        /**
+         * Build a cluster marker at the mean position of the cell's flags.
+         * The count is part of the ID, so the client replaces the marker
+         * (rather than keeping a stale count) when flags come and go.
+         */
+        static Entry cluster(FlagClusterTree.Cell cell) {
+            String markerId = CLUSTER_ID_PREFIX + cell.level() + "_" + cell.cellX() + "_" + cell.cellZ()
+                + "_" + cell.count();
+            String name = cell.count() + " Pickle Flags";
+            double x = (double) cell.sumX() / cell.count();
+            double y = (double) cell.sumY() / cell.count();
+            double z = (double) cell.sumZ() / cell.count();
+            return new Entry(
+                null,
+                cell,
+                markerId,
+                name,
+                new Vector3d(x, y, z),
+                new MapMarker(
+                    markerId,
+                    name,
+                    DISCOVERED_ICON,
+                    PositionUtil.toTransformPacket(new Transform(x, y, z)),
+                    new ContextMenuItem[0]
+                )
+            );
+        }
+
+        /**
+         * Create context menu items for a flag marker (right-click menu).
+         *
+         * @param flagId The flag's UUID string
+         * @return Array of context menu items
+         */
+        private static ContextMenuItem[] createContextMenuItems(String flagId) {
+            // Add rename option - opens the rename UI via command
+            return new ContextMenuItem[] {
+                new ContextMenuItem("Rename", "pickleflag manage " + flagId)
+            };
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Always-on counters and latency histograms for the mod's hot paths
+ */
+package pickleflag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-wide instrumentation of the mod, owned by the FlagManager.
+ *
+ * Recording is cheap enough to leave on: every counter and histogram
+ * bucket is a LongAdder, so world threads updating the same metric do not
+ * contend on one cache line, and nothing is aggregated on the hot path.
+ * Readers (the /pickleflag stats command, the optional periodic log line)
+ * sum the adders when they ask; a sum taken while writers are running is
+ * not an atomic snapshot, which is fine for monitoring.
+ *
+ * Measured:
+ * - Flag section ticks: time FlagTicking spends in sections with due flags
+ * - Marker updates: time of one player's marker refresh, and markers offered
+ * - Discovery passes: off-thread time of one world's discovery evaluation,
+ *   and ticks skipped because the previous pass was still running
+ * - Discoveries and the notifications announcing them, placements and removals
+ * - Registry size, read from the registries when a summary is taken
+ */
+public final class FlagMetrics {
+
+    // Time spent ticking sections that had due flags
+    private final Histogram sectionTickTime = new Histogram();
+
+    // Time of one PickleFlagMarkerProvider.update call (one player)
+    private final Histogram markerUpdateTime = new Histogram();
+
+    // Markers offered to trackers
+    private final LongAdder markersSent = new LongAdder();
+
+    // Off-thread time of one FlagDiscoveryScheduler pass (one world, one tick)
+    private final Histogram discoveryPassTime = new Histogram();
+
+    // Ticks whose discovery probes were dropped because a pass was still running
+    private final LongAdder discoveryPassesSkipped = new LongAdder();
+
+    // Flags discovered by players
+    private final LongAdder discoveries = new LongAdder();
+
+    // Discovery notifications sent (each covers one or more discoveries)
+    private final LongAdder discoveryNotices = new LongAdder();
+
+    // Flag blocks placed, loaded with their chunk, and broken
+    private final LongAdder flagsPlaced = new LongAdder();
+    private final LongAdder flagsLoaded = new LongAdder();
+    private final LongAdder flagsRemoved = new LongAdder();
+
+    /**
+     * Record one FlagTicking pass over a section with due flags.
+     *
+     * @param nanos Time spent in the section
+     */
+    public void recordSectionTick(long nanos) {
+        this.sectionTickTime.record(nanos);
+    }
+
+    /**
+     * Record one player's map marker refresh.
+     *
+     * @param nanos   Time spent in the refresh
+     * @param markers Markers offered to the player's tracker
+     */
+    public void recordMarkerUpdate(long nanos, int markers) {
+        this.markerUpdateTime.record(nanos);
+        this.markersSent.add(markers);
+    }
+
+    /**
+     * Record one world's discovery pass.
+     *
+     * @param nanos Time spent evaluating the pass off the world thread
+     */
+    public void recordDiscoveryPass(long nanos) {
+        this.discoveryPassTime.record(nanos);
+    }
+
+    /**
+     * Record a tick whose discovery probes were dropped because the previous pass was still running.
+     */
+    public void recordDiscoveryPassSkipped() {
+        this.discoveryPassesSkipped.increment();
+    }
+
+    /**
+     * Record a player discovering a flag.
+     */
+    public void recordDiscovery() {
+        this.discoveries.increment();
+    }
+
+    /**
+     * Record a discovery notification sent to a player.
+     */
+    public void recordDiscoveryNotice() {
+        this.discoveryNotices.increment();
+    }
+
+    /**
+     * Record a flag block being placed.
+     */
+    public void recordPlaced() {
+        this.flagsPlaced.increment();
+    }
+
+    /**
+     * Record a flag block being loaded with its chunk.
+     */
+    public void recordLoaded() {
+        this.flagsLoaded.increment();
+    }
+
+    /**
+     * Record a flag block being broken.
+     */
+    public void recordRemoved() {
+        this.flagsRemoved.increment();
+    }
+
+    /**
+     * Summarize every metric as human-readable lines, for the stats command.
+     *
+     * @param flagManager Source of the registry sizes
+     */
+    public List<String> summary(FlagManager flagManager) {
+        List<String> lines = new ArrayList<>();
+        int worlds = 0;
+        int flags = 0;
+        for (FlagRegistry registry : flagManager.getRegistries()) {
+            worlds++;
+            flags += registry.size();
+        }
+        lines.add("Flags: " + flags + " in " + worlds + " worlds (placed " + this.flagsPlaced.sum()
+            + ", loaded " + this.flagsLoaded.sum() + ", removed " + this.flagsRemoved.sum() + ")");
+        lines.add("Flag section ticks: " + this.sectionTickTime.describe());
+        lines.add("Marker updates: " + this.markerUpdateTime.describe() + ", markers sent " + this.markersSent.sum());
+        lines.add("Discovery passes: " + this.discoveryPassTime.describe()
+            + ", skipped " + this.discoveryPassesSkipped.sum());
+        lines.add("Discoveries: " + this.discoveries.sum() + " (" + this.discoveryNotices.sum() + " notifications)");
+        return lines;
+    }
+
+    /**
+     * Summarize every metric on one line, for the periodic log.
+     */
+    public String summaryLine(FlagManager flagManager) {
+        return String.join(" | ", this.summary(flagManager));
+    }
+
+    /**
+     * Latency histogram with fixed power-of-two buckets.
+     *
+     * Bucket i counts durations in [2^(i-1), 2^i) nanoseconds (bucket 0 counts
+     * zero), so recording is a leading-zero count and one striped increment.
+     * Percentiles are reported as the upper bound of their bucket, which is
+     * within a factor of two of the true value.
+     */
+    static final class Histogram {
+
+        // 2^40 ns is about 18 minutes; anything longer lands in the last bucket
+        private static final int BUCKETS = 41;
+
+        private final LongAdder[] counts = new LongAdder[BUCKETS];
+        private final LongAdder totalNanos = new LongAdder();
+
+        Histogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                this.counts[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            long clamped = Math.max(nanos, 0L);
+            this.counts[Math.min(64 - Long.numberOfLeadingZeros(clamped), BUCKETS - 1)].increment();
+            this.totalNanos.add(clamped);
+        }
+
+        /**
+         * Count, mean and upper bounds of the median, 99th percentile and maximum.
+         */
+        String describe() {
+            long[] snapshot = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = this.counts[i].sum();
+                count += snapshot[i];
+            }
+            if (count == 0) {
+                return "none";
+            }
+            return String.format("%d, mean %s, p50 <%s, p99 <%s, max <%s", count,
+                formatNanos(this.totalNanos.sum() / count),
+                formatNanos(upperBound(snapshot, count, 0.50)),
+                formatNanos(upperBound(snapshot, count, 0.99)),
+                formatNanos(upperBound(snapshot, count, 1.0)));
+        }
+
+        private static long upperBound(long[] snapshot, long count, double percentile) {
+            long rank = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank && snapshot[i] > 0) {
+                    return 1L << i;
+                }
+            }
+            return 1L << (BUCKETS - 1);
+        }
+
+        private static String formatNanos(long nanos) {
+            if (nanos < 1_000L) {
+                return nanos + "ns";
+            }
+            if (nanos < 1_000_000L) {
+                return String.format("%.1fus", nanos / 1e3);
+            }
+            return String.format("%.1fms", nanos / 1e6);
+        }
+    }
+}
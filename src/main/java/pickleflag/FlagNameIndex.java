@@ -0,0 +1,210 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Name-sorted index over placed flags
+ */
+package pickleflag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable index that orders a snapshot's flags by name.
+ *
+ * Names are compared case-insensitively (ties broken by handle, so the order
+ * is stable), which lets the list and search commands fetch one page with
+ * an array range and a prefix match with two binary searches, however many
+ * flags the world holds.
+ *
+ * Built from a FlagSnapshot on first use and cached by the FlagRegistry
+ * until the registry changes, so flag placement never pays for sorting.
+ * After a change the cached index is patched with just the changed flags
+ * (see apply()) instead of sorted again.
+ */
+public final class FlagNameIndex {
+
+    // Index with no flags, shared by every empty registry
+    static final FlagNameIndex EMPTY = new FlagNameIndex(0L, new String[0], new FlagManager.FlagData[0]);
+
+    // The index is sorted again instead of patched once more than 1/N of the flags changed
+    private static final int FULL_REBUILD_DIVISOR = 4;
+
+    // Name order, ties broken by handle
+    private static final Comparator<Entry> ENTRY_ORDER = Comparator.comparing(Entry::key)
+        .thenComparingInt(entry -> entry.flag().handle());
+
+    // Registry version of the snapshot this index was built from
+    private final long version;
+
+    // Lower-cased flag names, sorted ascending
+    private final String[] keys;
+
+    // Flags in the same order as keys
+    private final FlagManager.FlagData[] flags;
+
+    private FlagNameIndex(long version, String[] keys, FlagManager.FlagData[] flags) {
+        this.version = version;
+        this.keys = keys;
+        this.flags = flags;
+    }
+
+    /**
+     * Build an index over a snapshot's flags.
+     *
+     * @param snapshot Snapshot to index
+     * @return A new immutable index
+     */
+    public static FlagNameIndex build(FlagSnapshot snapshot) {
+        if (snapshot.size() == 0) {
+            return new FlagNameIndex(snapshot.version(), EMPTY.keys, EMPTY.flags);
+        }
+
+        // Lower-case each name once rather than on every comparison
+        List<FlagManager.FlagData> source = snapshot.getAllFlags();
+        Entry[] entries = new Entry[source.size()];
+        for (int i = 0; i < entries.length; i++) {
+            FlagManager.FlagData flag = source.get(i);
+            entries[i] = new Entry(keyOf(flag.name()), flag);
+        }
+        Arrays.sort(entries, ENTRY_ORDER);
+
+        String[] keys = new String[entries.length];
+        FlagManager.FlagData[] sorted = new FlagManager.FlagData[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            keys[i] = entries[i].key();
+            sorted[i] = entries[i].flag();
+        }
+        return new FlagNameIndex(snapshot.version(), keys, sorted);
+    }
+
+    /**
+     * Build the index of a later snapshot from this one and the flags changed since.
+     *
+     * Entries of unchanged flags are kept in place; the changed flags still
+     * in the snapshot are sorted on their own and merged in, in one pass.
+     *
+     * @param snapshot Snapshot to index
+     * @param changed  Handles of every flag changed between this index's snapshot and the given one
+     * @return A new immutable index
+     */
+    FlagNameIndex apply(FlagSnapshot snapshot, BitSet changed) {
+        if (changed.cardinality() > snapshot.size() / FULL_REBUILD_DIVISOR) {
+            return build(snapshot);
+        }
+
+        List<Entry> updated = new ArrayList<>();
+        for (int handle = changed.nextSetBit(0); handle >= 0; handle = changed.nextSetBit(handle + 1)) {
+            FlagManager.FlagData flag = snapshot.getFlag(handle);
+            if (flag != null) {
+                updated.add(new Entry(keyOf(flag.name()), flag));
+            }
+        }
+        updated.sort(ENTRY_ORDER);
+
+        // Merge in name order, dropping the old entries of changed flags
+        String[] keys = new String[snapshot.size()];
+        FlagManager.FlagData[] flags = new FlagManager.FlagData[snapshot.size()];
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i < this.flags.length; i++) {
+            if (changed.get(this.flags[i].handle())) {
+                continue;
+            }
+            while (next < updated.size() && compare(updated.get(next), this.keys[i], this.flags[i]) < 0) {
+                keys[size] = updated.get(next).key();
+                flags[size++] = updated.get(next++).flag();
+            }
+            keys[size] = this.keys[i];
+            flags[size++] = this.flags[i];
+        }
+        for (; next < updated.size(); next++) {
+            keys[size] = updated.get(next).key();
+            flags[size++] = updated.get(next).flag();
+        }
+        return new FlagNameIndex(snapshot.version(), keys, flags);
+    }
+
+    /**
+     * Get the registry version this index was built at.
+     */
+    public long version() {
+        return this.version;
+    }
+
+    /**
+     * Get a range of flags in name order.
+     *
+     * @param from First position, inclusive
+     * @param to   Last position, exclusive (clamped to the index size)
+     * @return Unmodifiable list of the flags in the range
+     */
+    public List<FlagManager.FlagData> range(int from, int to) {
+        int end = Math.min(to, this.flags.length);
+        if (from >= end) {
+            return List.of();
+        }
+        return List.of(Arrays.copyOfRange(this.flags, from, end));
+    }
+
+    /**
+     * Position of the first flag whose name starts with a prefix, or would
+     * follow it in name order.
+     *
+     * @param prefix Name prefix, compared case-insensitively
+     */
+    public int prefixStart(String prefix) {
+        return this.lowerBound(keyOf(prefix));
+    }
+
+    /**
+     * Position just past the last flag whose name starts with a prefix.
+     *
+     * @param prefix Name prefix, compared case-insensitively
+     */
+    public int prefixEnd(String prefix) {
+        // U+FFFF is a noncharacter, so this sorts after every name with the prefix
+        return this.lowerBound(keyOf(prefix) + '\uffff');
+    }
+
+    /**
+     * Number of flags in the index.
+     */
+    public int size() {
+        return this.flags.length;
+    }
+
+    private static String keyOf(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Compare an entry with an existing key and flag in ENTRY_ORDER.
+     */
+    private static int compare(Entry entry, String key, FlagManager.FlagData flag) {
+        int order = entry.key().compareTo(key);
+        return order != 0 ? order : Integer.compare(entry.flag().handle(), flag.handle());
+    }
+
+    private record Entry(String key, FlagManager.FlagData flag) {
+    }
+
+    /**
+     * Index of the first key that is not less than the given key.
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = this.keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
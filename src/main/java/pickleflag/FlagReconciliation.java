@@ -0,0 +1,97 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Per-chunk repair of registry entries against loaded flag blocks
+ */
+package pickleflag;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repairs a world's registry one chunk at a time as chunks load.
+ *
+ * Flags are not removed from the registry when their chunk unloads, and the
+ * registry is restored from disk at startup. A flag whose block disappeared
+ * while its chunk was not loaded (a crash, a world edit, a rollback) would
+ * otherwise stay on the map forever. When a chunk loads, the flags the
+ * registry expects in that chunk are compared with the flag blocks that
+ * actually loaded:
+ * - No flag block at the expected position: the entry is a ghost and is removed
+ * - A different flag at that position: the entry is a ghost and is removed
+ *   (the block that is there registered itself when it loaded)
+ * - Same flag with an older name: the block takes the registry name
+ *
+ * Flag blocks missing from the registry need no work here: OnFlagPlaced
+ * registers every flag block as it loads.
+ *
+ * The expected flags come from the spatial index, so a chunk without flags
+ * costs one binary search and nothing is scheduled for it.
+ */
+public final class FlagReconciliation {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private FlagReconciliation() {
+    }
+
+    /**
+     * Schedule reconciliation of a chunk that just loaded.
+     *
+     * The check runs later on the world thread, once the chunk's block
+     * entities have been added and registered.
+     *
+     * @param world    The world the chunk belongs to
+     * @param registry The world's registry
+     * @param chunkX   Chunk X coordinate
+     * @param chunkZ   Chunk Z coordinate
+     */
+    public static void chunkLoaded(World world, FlagRegistry registry, int chunkX, int chunkZ) {
+        List<FlagManager.FlagData> expected = new ArrayList<>(0);
+        registry.snapshot().forEachFlagInChunk(chunkX, chunkZ, expected::add);
+        if (expected.isEmpty()) {
+            return;
+        }
+        world.execute(() -> reconcile(world, registry, chunkX, chunkZ, expected));
+    }
+
+    /**
+     * Compare registry entries with the loaded blocks of a chunk and repair them.
+     * Must run on the world thread.
+     *
+     * @param expected Flags the registry placed in the chunk when it loaded
+     * @return Number of ghost entries removed
+     */
+    static int reconcile(World world, FlagRegistry registry, int chunkX, int chunkZ,
+                         List<FlagManager.FlagData> expected) {
+        int removed = 0;
+        for (FlagManager.FlagData seen : expected) {
+            // Re-read: the load itself may have moved or renamed the flag
+            FlagManager.FlagData flag = registry.getFlag(seen.handle());
+            if (flag == null
+                || FlagSpatialIndex.chunkCoordinate(flag.x()) != chunkX
+                || FlagSpatialIndex.chunkCoordinate(flag.z()) != chunkZ) {
+                continue;
+            }
+
+            // Chunk unloaded again before this ran; it will be checked on its next load
+            if (FlagBlocks.getChunkRef(world, flag.x(), flag.z()) == null) {
+                return removed;
+            }
+
+            PickleFlagBlock flagBlock = FlagBlocks.getFlagBlock(world, flag);
+            if (flagBlock == null || flagBlock.getFlagHandle() != flag.handle()) {
+                if (registry.removeFlag(flag)) {
+                    removed++;
+                    LOGGER.atInfo().log("Removed missing Pickle flag %s at %s, %s, %s",
+                        registry.getFlagIds().toString(flag.handle()), flag.x(), flag.y(), flag.z());
+                }
+            } else if (!flag.name().equals(flagBlock.getFlagName())) {
+                flagBlock.setFlagName(flag.name());
+            }
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Per-world registry of placed flags
+ */
+package pickleflag;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Registry of the Pickle Pirate Flags placed in a single world.
+ *
+ * Each world gets its own registry from the FlagManager, so placement,
+ * removal and map marker queries in one world never touch flags that
+ * belong to another.
+ *
+ * The registry is safe to use from any thread. Writers (world tick threads,
+ * the rename UI and async commands) update a lock-free handle table and bump the
+ * version without taking a lock. Readers get an immutable FlagSnapshot that
+ * is rebuilt at most once per version, so iterating it never races a writer.
+ * Writers also record which handles they changed, so the next snapshot
+ * patches the previous one with just those flags instead of copying and
+ * sorting the whole table.
+ *
+ * Every change is also published as a FlagEvent, so other parts of the plugin
+ * can react to adds, renames, moves and removals instead of polling.
+ *
+ * Bursts of changes (chunk loads, restores, mass edits) can be collected in
+ * a FlagBatch and committed together: the whole batch becomes one registry
+ * version, so readers rebuild their snapshot and recompute markers once, and
+ * no snapshot is ever built from a half-applied batch.
+ */
+public class FlagRegistry {
+
+    // Name of the world this registry belongs to
+    private final String worldName;
+
+    // Map of flag handle -> flag data (live, written concurrently)
+    private final HandleTable<FlagManager.FlagData> flagDataMap = new HandleTable<>();
+
+    // Incremented after every change to flagDataMap
+    private final AtomicLong version = new AtomicLong();
+
+    // Held for writing while a batch is applied, and for reading while a snapshot collects the changed flags
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+    // Most recent snapshot handed to readers
+    private final AtomicReference<FlagSnapshot> snapshot = new AtomicReference<>(FlagSnapshot.EMPTY);
+
+    // Handles changed since the last snapshot was built; each handle is queued once while marked
+    private final HandleTable<Boolean> changedMarks = new HandleTable<>();
+    private final Queue<Integer> changedHandles = new ConcurrentLinkedQueue<>();
+
+    // Held while a snapshot is built, so every change is applied to exactly one snapshot
+    private final Object snapshotLock = new Object();
+
+    // Most recent name index, built from a snapshot when a command first needs it
+    private final AtomicReference<FlagNameIndex> nameIndex = new AtomicReference<>(FlagNameIndex.EMPTY);
+
+    // Handles changed in snapshots built since the name index was last patched (guarded by snapshotLock)
+    private BitSet nameIndexChanges = new BitSet();
+
+    // Held while the name index is patched, so each patch starts from the previous one
+    private final Object nameIndexLock = new Object();
+
+    // Loaded flag blocks by chunk section, for FlagTicking
+    private final FlagSectionIndex sectionIndex = new FlagSectionIndex();
+
+    // Flag counts per map cell, for clustering map markers
+    private final FlagClusterTree clusterTree = new FlagClusterTree();
+
+    // Player presence and dormant flag tracking for adaptive ticking
+    private final FlagDormancy dormancy = new FlagDormancy(this.sectionIndex);
+
+    // Server-wide flag handle table
+    private final FlagIds flagIds;
+
+    // Receives every change made to this registry
+    private final Consumer<FlagEvent> publisher;
+
+    /**
+     * Create an empty registry for a world.
+     *
+     * @param worldName Name of the world
+     * @param flagIds   Server-wide flag handle table
+     * @param publisher Receives a FlagEvent for every change
+     */
+    public FlagRegistry(String worldName, FlagIds flagIds, Consumer<FlagEvent> publisher) {
+        this.worldName = worldName;
+        this.flagIds = flagIds;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Get the name of the world this registry belongs to.
+     */
+    public String getWorldName() {
+        return this.worldName;
+    }
+
+    /**
+     * Get the server-wide flag handle table, for converting handles at the UI boundary.
+     */
+    public FlagIds getFlagIds() {
+        return this.flagIds;
+    }
+
+    /**
+     * Get the dormancy tracker used to back off idle flag ticks.
+     */
+    public FlagDormancy getDormancy() {
+        return this.dormancy;
+    }
+
+    /**
+     * Get the index of loaded flag blocks by chunk section.
+     */
+    public FlagSectionIndex getSectionIndex() {
+        return this.sectionIndex;
+    }
+
+    /**
+     * Get the quadtree of flag counts used to cluster map markers.
+     */
+    public FlagClusterTree getClusterTree() {
+        return this.clusterTree;
+    }
+
+    /**
+     * Register a flag at the given position.
+     *
+     * Flags are re-registered every time their chunk loads. If the flag is
+     * already known the registry keeps its name (it may have been renamed
+     * while the chunk was unloaded) and only records a position change.
+     *
+     * @param handle Handle of the flag (see FlagIds)
+     * @param name   Display name for the flag
+     * @param x      World X coordinate
+     * @param y      World Y coordinate
+     * @param z      World Z coordinate
+     * @return The registered flag data
+     */
+    public FlagManager.FlagData addFlag(int handle, String name, int x, int y, int z) {
+        return this.addFlag(handle, name, x, y, z, this::publish);
+    }
+
+    /**
+     * Register a flag, handing the resulting event to a sink instead of publishing it.
+     */
+    FlagManager.FlagData addFlag(int handle, String name, int x, int y, int z, Consumer<FlagEvent> sink) {
+        while (true) {
+            FlagManager.FlagData existing = this.flagDataMap.get(handle);
+            if (existing == null) {
+                FlagManager.FlagData added = new FlagManager.FlagData(handle, name, x, y, z);
+                if (this.flagDataMap.putIfAbsent(handle, added) == null) {
+                    sink.accept(new FlagEvent.Added(this.worldName, added));
+                    return added;
+                }
+            } else if (existing.x() == x && existing.y() == y && existing.z() == z) {
+                return existing;
+            } else if (this.replace(existing, new FlagManager.FlagData(handle, existing.name(), x, y, z), sink)) {
+                return this.flagDataMap.get(handle);
+            }
+        }
+    }
+
+    /**
+     * Move a flag to a new position.
+     *
+     * @param handle Handle of the flag
+     * @param x      New world X coordinate
+     * @param y      New world Y coordinate
+     * @param z      New world Z coordinate
+     */
+    public void moveFlag(int handle, int x, int y, int z) {
+        FlagManager.FlagData existing;
+        do {
+            existing = this.flagDataMap.get(handle);
+            if (existing == null || (existing.x() == x && existing.y() == y && existing.z() == z)) {
+                return;
+            }
+        } while (!this.replace(existing, new FlagManager.FlagData(handle, existing.name(), x, y, z),
+            this::publish));
+    }
+
+    /**
+     * Remove a flag from the registry.
+     *
+     * @param handle Handle of the flag to remove
+     */
+    public void removeFlag(int handle) {
+        this.removeFlag(handle, this::publish);
+    }
+
+    /**
+     * Remove a flag, handing the resulting event to a sink instead of publishing it.
+     */
+    void removeFlag(int handle, Consumer<FlagEvent> sink) {
+        FlagManager.FlagData removed = this.flagDataMap.remove(handle);
+        if (removed != null) {
+            this.dormancy.clearDormant(handle);
+            sink.accept(new FlagEvent.Removed(this.worldName, removed));
+        }
+    }
+
+    /**
+     * Remove a flag only if it has not changed since it was read.
+     * Used to drop stale entries without racing a concurrent move or rename.
+     *
+     * @param expected The flag record that was found to be stale
+     * @return true if the flag was removed
+     */
+    public boolean removeFlag(FlagManager.FlagData expected) {
+        if (!this.flagDataMap.remove(expected.handle(), expected)) {
+            return false;
+        }
+        this.dormancy.clearDormant(expected.handle());
+        this.publish(new FlagEvent.Removed(this.worldName, expected));
+        return true;
+    }
+
+    /**
+     * Get data for a specific flag.
+     *
+     * @param handle Handle of the flag
+     * @return The flag data, or null if not found
+     */
+    public FlagManager.FlagData getFlag(int handle) {
+        return this.flagDataMap.get(handle);
+    }
+
+    /**
+     * Get all flags in this world, as of the current snapshot.
+     *
+     * @return Unmodifiable collection of all flag data
+     */
+    public Collection<FlagManager.FlagData> getAllFlags() {
+        return this.snapshot().getAllFlags();
+    }
+
+    /**
+     * Rename a flag.
+     *
+     * @param handle Handle of the flag
+     * @param name   The new name
+     */
+    public void renameFlag(int handle, String name) {
+        this.renameFlag(handle, name, this::publish);
+    }
+
+    /**
+     * Rename a flag, handing the resulting event to a sink instead of publishing it.
+     */
+    void renameFlag(int handle, String name, Consumer<FlagEvent> sink) {
+        FlagManager.FlagData existing;
+        do {
+            existing = this.flagDataMap.get(handle);
+            if (existing == null || existing.name().equals(name)) {
+                return;
+            }
+        } while (!this.replace(existing,
+            new FlagManager.FlagData(handle, name, existing.x(), existing.y(), existing.z()), sink));
+    }
+
+    /**
+     * Visit every flag whose chunk is within a chunk radius of a center chunk.
+     * Only flags in nearby chunks are touched, regardless of how many flags exist.
+     *
+     * @param centerChunkX       Chunk X at the center of the query
+     * @param centerChunkZ       Chunk Z at the center of the query
+     * @param chunkRadiusSquared Squared radius in chunks
+     * @param visitor            Called once per flag in range
+     */
+    public void forEachFlagInChunkRadius(int centerChunkX, int centerChunkZ, int chunkRadiusSquared,
+                                         Consumer<FlagManager.FlagData> visitor) {
+        this.snapshot().forEachFlagInChunkRadius(centerChunkX, centerChunkZ, chunkRadiusSquared, visitor);
+    }
+
+    /**
+     * Get an immutable snapshot of this registry.
+     *
+     * The cached snapshot is returned when nothing changed since it was built.
+     * Otherwise the next one is built on the calling thread by patching the
+     * cached snapshot with the flags changed since, which costs one linear
+     * merge instead of a full copy and sort. Only reading the changed flags
+     * excludes batch commits, so a commit waits for a few table reads, never
+     * for a build; concurrent readers wait for one build instead of each
+     * making their own.
+     *
+     * @return The current snapshot
+     */
+    public FlagSnapshot snapshot() {
+        FlagSnapshot current = this.snapshot.get();
+        if (current.version() == this.version.get()) {
+            return current;
+        }
+
+        synchronized (this.snapshotLock) {
+            current = this.snapshot.get();
+            long version;
+            Map<Integer, FlagManager.FlagData> changes = new HashMap<>();
+
+            // Never read the table while a batch is half applied
+            this.commitLock.readLock().lock();
+            try {
+                version = this.version.get();
+                if (current.version() == version) {
+                    return current;
+                }
+
+                // The version was read first: writers mark a handle before bumping it
+                for (Integer handle = this.changedHandles.poll(); handle != null;
+                     handle = this.changedHandles.poll()) {
+                    this.changedMarks.remove(handle);
+                    changes.put(handle, this.flagDataMap.get(handle));
+                }
+            } finally {
+                this.commitLock.readLock().unlock();
+            }
+
+            for (Integer handle : changes.keySet()) {
+                this.nameIndexChanges.set(handle);
+            }
+
+            // The changes are private copies now, so commits can proceed during the build
+            FlagSnapshot built = current.apply(version, changes);
+            this.snapshot.set(built);
+            return built;
+        }
+    }
+
+    /**
+     * Get an index of this registry's flags sorted by name.
+     *
+     * Brought up to date with the current snapshot on first use after a
+     * change and cached like the snapshot itself, so only the commands that
+     * page or search by name pay for it. Like the snapshot, the previous
+     * index is patched with the flags changed since rather than sorted again.
+     *
+     * @return The name index for the current snapshot
+     */
+    public FlagNameIndex nameIndex() {
+        FlagSnapshot current = this.snapshot();
+        FlagNameIndex cached = this.nameIndex.get();
+        if (cached.version() == current.version()) {
+            return cached;
+        }
+
+        synchronized (this.nameIndexLock) {
+            BitSet changed;
+            synchronized (this.snapshotLock) {
+                // Take the changes and the snapshot they lead to together
+                current = this.snapshot.get();
+                cached = this.nameIndex.get();
+                if (cached.version() == current.version()) {
+                    return cached;
+                }
+                changed = this.nameIndexChanges;
+                this.nameIndexChanges = new BitSet();
+            }
+
+            FlagNameIndex built = cached.apply(current, changed);
+            this.nameIndex.set(built);
+            return built;
+        }
+    }
+
+    /**
+     * Get the current registry version. Changes after every add, rename and removal.
+     */
+    public long getVersion() {
+        return this.version.get();
+    }
+
+    /**
+     * Apply a batch of changes as a single registry version.
+     *
+     * Snapshot readers wait while the batch is applied, so they see either
+     * none or all of it. The version is bumped once, then every resulting
+     * event is delivered in order.
+     *
+     * @param batch Changes to apply, in the order they were collected
+     * @return Number of changes that altered the registry
+     */
+    int commit(FlagBatch batch) {
+        List<FlagEvent> events = new ArrayList<>();
+        this.commitLock.writeLock().lock();
+        try {
+            batch.applyTo(this, events::add);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            for (FlagEvent event : events) {
+                int handle = event.flag().handle();
+                this.clusterTree.update(handle, this.flagDataMap.get(handle));
+                this.markChanged(handle);
+            }
+            this.version.incrementAndGet();
+        } finally {
+            this.commitLock.writeLock().unlock();
+        }
+
+        for (FlagEvent event : events) {
+            this.publisher.accept(event);
+        }
+        return events.size();
+    }
+
+    /**
+     * Atomically replace a flag record and emit the matching rename or move event.
+     *
+     * @return false if the flag changed concurrently and the caller should retry
+     */
+    private boolean replace(FlagManager.FlagData existing, FlagManager.FlagData updated,
+                            Consumer<FlagEvent> sink) {
+        if (!this.flagDataMap.replace(existing.handle(), existing, updated)) {
+            return false;
+        }
+        if (!existing.name().equals(updated.name())) {
+            sink.accept(new FlagEvent.Renamed(this.worldName, existing, updated));
+        } else {
+            sink.accept(new FlagEvent.Moved(this.worldName, existing, updated));
+        }
+        return true;
+    }
+
+    /**
+     * Update the cluster tree, bump the version so readers rebuild their
+     * snapshot, then notify listeners.
+     */
+    private void publish(FlagEvent event) {
+        int handle = event.flag().handle();
+        this.clusterTree.update(handle, this.flagDataMap.get(handle));
+        this.markChanged(handle);
+        this.version.incrementAndGet();
+        this.publisher.accept(event);
+    }
+
+    /**
+     * Record that a flag changed, for the next snapshot. Call before bumping the version.
+     */
+    private void markChanged(int handle) {
+        if (this.changedMarks.putIfAbsent(handle, Boolean.TRUE) == null) {
+            this.changedHandles.add(handle);
+        }
+    }
+
+    /**
+     * Number of flags in this world.
+     */
+    public int size() {
+        return this.flagDataMap.size();
+    }
+}
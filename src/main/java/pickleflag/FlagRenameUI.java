@@ -31,6 +31,9 @@ public class FlagRenameUI extends InteractiveCustomUIPage<FlagRenameUI.RenameDat
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
+    // Registry of the world the flag was placed in
+    private final FlagRegistry registry;
+
     // The flag being renamed
     private final FlagManager.FlagData flagData;
 
@@ -38,10 +41,13 @@ public class FlagRenameUI extends InteractiveCustomUIPage<FlagRenameUI.RenameDat
      * Create a new rename UI for the given flag.
      *
      * @param playerRef Reference to the player opening the UI
+     * @param registry  Registry holding the flag
      * @param flagData  The flag to rename
      */
-    public FlagRenameUI(@Nonnull PlayerRef playerRef, FlagManager.FlagData flagData) {
+    public FlagRenameUI(@Nonnull PlayerRef playerRef, FlagRegistry registry,
+                        FlagManager.FlagData flagData) {
         super(playerRef, CustomPageLifetime.CanDismiss, RenameData.CODEC);
+        this.registry = registry;
         this.flagData = flagData;
     }
 
@@ -90,11 +96,12 @@ public class FlagRenameUI extends InteractiveCustomUIPage<FlagRenameUI.RenameDat
                     newName = newName.substring(0, 32);
                 }
 
-                LOGGER.atInfo().log("Confirming rename of flag " + this.flagData.id() +
+                LOGGER.atInfo().log("Confirming rename of flag " +
+                    this.registry.getFlagIds().toString(this.flagData.handle()) +
                     " from '" + this.flagData.name() + "' to '" + newName + "'");
 
-                // Update the flag name in the manager
-                PickleFlagPlugin.get().getFlagManager().renameFlag(this.flagData.id(), newName);
+                // Update the flag name in its world's registry
+                this.registry.renameFlag(this.flagData.handle(), newName);
             }
 
             // Close the UI
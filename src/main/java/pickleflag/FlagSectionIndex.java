@@ -0,0 +1,202 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Loaded flag blocks of a world, grouped by chunk section
+ */
+package pickleflag;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the flag blocks currently loaded in one world, by chunk section.
+ *
+ * FlagTicking runs for every block section in the world, and most ticking
+ * blocks (crops, fluids, other mods' blocks) are not flags. With this index
+ * a section without flags is rejected with one map lookup, and a flag
+ * section's ticking blocks are matched against its few flag slots instead
+ * of resolving a block entity and its components for each of them.
+ *
+ * Each section also remembers when its flags are next scheduled to tick,
+ * so a section whose flags are all backed off is skipped entirely even
+ * while other blocks in it keep ticking.
+ *
+ * Maintained by OnFlagPlaced: flag blocks are added when placed or loaded
+ * and removed when broken or unloaded. One instance belongs to each
+ * FlagRegistry. Sections are only changed from the world thread.
+ */
+public class FlagSectionIndex {
+
+    // Map of section key -> flags loaded in that section
+    private final Map<Long, Section> sections = new ConcurrentHashMap<>();
+
+    /**
+     * Add a loaded flag block.
+     *
+     * @param chunkX   Chunk X of the block
+     * @param sectionY Section Y of the block (world Y >> 5)
+     * @param chunkZ   Chunk Z of the block
+     * @param slot     Block index within the section (ChunkUtil.indexBlock)
+     * @param blockRef The flag's block entity
+     * @param nextTick When the flag's block tick is scheduled, or null if it is not
+     */
+    public void add(int chunkX, int sectionY, int chunkZ, int slot, Ref<ChunkStore> blockRef, Instant nextTick) {
+        Section section = this.sections.computeIfAbsent(sectionKey(chunkX, sectionY, chunkZ), key -> new Section());
+        section.put(slot, blockRef);
+        section.scheduled(slot, nextTick);
+    }
+
+    /**
+     * Remove a flag block that was broken or unloaded.
+     */
+    public void remove(int chunkX, int sectionY, int chunkZ, int slot) {
+        long key = sectionKey(chunkX, sectionY, chunkZ);
+        Section section = this.sections.get(key);
+        if (section != null && section.remove(slot) && section.count == 0) {
+            this.sections.remove(key);
+        }
+    }
+
+    /**
+     * Get the flags loaded in a section.
+     *
+     * @return The section's flags, or null if it holds none
+     */
+    public Section get(int chunkX, int sectionY, int chunkZ) {
+        return this.sections.get(sectionKey(chunkX, sectionY, chunkZ));
+    }
+
+    /**
+     * Number of sections holding at least one loaded flag.
+     */
+    public int size() {
+        return this.sections.size();
+    }
+
+    /**
+     * Pack section coordinates into a map key: 24 bits of chunk X and Z
+     * (far beyond the world border) and 16 bits of section Y.
+     */
+    static long sectionKey(int chunkX, int sectionY, int chunkZ) {
+        return ((long) chunkX << 40) | ((chunkZ & 0xFFFFFFL) << 16) | (sectionY & 0xFFFFL);
+    }
+
+    /**
+     * Flags loaded in one section: parallel arrays of slot, block entity and
+     * next scheduled tick. Sections rarely hold more than a few flags, so
+     * lookups are a linear scan.
+     */
+    public static final class Section {
+
+        private int[] slots = new int[2];
+
+        private Ref<ChunkStore>[] blockRefs = newBlockRefs(2);
+
+        // Next scheduled tick per flag, in epoch milliseconds (Long.MAX_VALUE = none)
+        private long[] nextTicks = new long[2];
+
+        private int count;
+
+        // Minimum of nextTicks
+        private long earliestTick = Long.MAX_VALUE;
+
+        /**
+         * Create an array of block entities; generic arrays cannot be created directly.
+         */
+        @SuppressWarnings("unchecked")
+        private static Ref<ChunkStore>[] newBlockRefs(int length) {
+            return (Ref<ChunkStore>[]) new Ref<?>[length];
+        }
+
+        /**
+         * Get the block entity of the flag in a slot.
+         *
+         * @param slot Block index within the section
+         * @return The flag's block entity, or null if the slot holds no flag
+         */
+        public Ref<ChunkStore> getBlockRef(int slot) {
+            int i = this.indexOf(slot);
+            return i >= 0 ? this.blockRefs[i] : null;
+        }
+
+        /**
+         * Check whether any flag in this section is due to tick.
+         */
+        public boolean hasDueFlag(Instant now) {
+            return this.earliestTick <= now.toEpochMilli();
+        }
+
+        /**
+         * Record when a flag's block tick was scheduled.
+         *
+         * @param slot     Block index within the section
+         * @param nextTick Scheduled time, or null if the flag is not scheduled
+         */
+        public void scheduled(int slot, Instant nextTick) {
+            int i = this.indexOf(slot);
+            if (i < 0) {
+                return;
+            }
+            this.nextTicks[i] = nextTick != null ? nextTick.toEpochMilli() : Long.MAX_VALUE;
+            this.updateEarliestTick();
+        }
+
+        /**
+         * Number of flags loaded in this section.
+         */
+        public int size() {
+            return this.count;
+        }
+
+        private void put(int slot, Ref<ChunkStore> blockRef) {
+            int i = this.indexOf(slot);
+            if (i < 0) {
+                if (this.count == this.slots.length) {
+                    int capacity = this.count * 2;
+                    this.slots = Arrays.copyOf(this.slots, capacity);
+                    this.blockRefs = Arrays.copyOf(this.blockRefs, capacity);
+                    this.nextTicks = Arrays.copyOf(this.nextTicks, capacity);
+                }
+                i = this.count++;
+                this.slots[i] = slot;
+                this.nextTicks[i] = Long.MAX_VALUE;
+            }
+            this.blockRefs[i] = blockRef;
+        }
+
+        private boolean remove(int slot) {
+            int i = this.indexOf(slot);
+            if (i < 0) {
+                return false;
+            }
+            int last = --this.count;
+            this.slots[i] = this.slots[last];
+            this.blockRefs[i] = this.blockRefs[last];
+            this.nextTicks[i] = this.nextTicks[last];
+            this.blockRefs[last] = null;
+            this.updateEarliestTick();
+            return true;
+        }
+
+        private void updateEarliestTick() {
+            long earliest = Long.MAX_VALUE;
+            for (int i = 0; i < this.count; i++) {
+                earliest = Math.min(earliest, this.nextTicks[i]);
+            }
+            this.earliestTick = earliest;
+        }
+
+        private int indexOf(int slot) {
+            for (int i = 0; i < this.count; i++) {
+                if (this.slots[i] == slot) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
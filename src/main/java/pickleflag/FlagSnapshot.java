@@ -0,0 +1,153 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Immutable, versioned view of a world's flag registry
+ */
+package pickleflag;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Immutable view of a FlagRegistry at a given version.
+ *
+ * Snapshots are built from a private copy of the registry, so the flag list
+ * and the spatial index always agree with each other. They can be shared
+ * freely between threads and iterated while writers keep changing the
+ * registry. A new snapshot is usually the previous one patched with the
+ * flags changed since (see apply()), rather than a full copy.
+ *
+ * @param version      Registry version the snapshot was taken at
+ * @param flags        Every flag in the registry, in handle order
+ * @param spatialIndex Chunk-keyed index over the same flags
+ */
+public record FlagSnapshot(long version, List<FlagManager.FlagData> flags,
+                           FlagSpatialIndex spatialIndex) {
+
+    // Snapshot of a registry that has never held a flag
+    static final FlagSnapshot EMPTY = new FlagSnapshot(0L, List.of(), FlagSpatialIndex.EMPTY);
+
+    // The spatial index is rebuilt instead of patched once more than 1/N of the flags changed
+    private static final int FULL_REBUILD_DIVISOR = 4;
+
+    /**
+     * Build the next snapshot from this one and the flags changed since.
+     *
+     * Unchanged records are kept and the changed ones replaced, in one merge
+     * pass over the flag list and one over the spatial index; only the
+     * changed flags are sorted. When a large share of the flags changed,
+     * the spatial index is built again from the merged list instead.
+     *
+     * @param version Registry version the changes were read at
+     * @param changes Map of changed flag handle -> its record now, or null if it was removed
+     * @return A new snapshot
+     */
+    FlagSnapshot apply(long version, Map<Integer, FlagManager.FlagData> changes) {
+        BitSet changed = new BitSet();
+        List<FlagManager.FlagData> updated = new ArrayList<>(changes.size());
+        for (Map.Entry<Integer, FlagManager.FlagData> change : changes.entrySet()) {
+            changed.set(change.getKey());
+            if (change.getValue() != null) {
+                updated.add(change.getValue());
+            }
+        }
+        updated.sort(Comparator.comparingInt(FlagManager.FlagData::handle));
+
+        // Merge in handle order, dropping the old records of changed flags
+        List<FlagManager.FlagData> merged = new ArrayList<>(this.flags.size() + updated.size());
+        int next = 0;
+        for (FlagManager.FlagData flag : this.flags) {
+            while (next < updated.size() && updated.get(next).handle() < flag.handle()) {
+                merged.add(updated.get(next++));
+            }
+            if (!changed.get(flag.handle())) {
+                merged.add(flag);
+            }
+        }
+        merged.addAll(updated.subList(next, updated.size()));
+
+        FlagSpatialIndex index = changes.size() > this.flags.size() / FULL_REBUILD_DIVISOR
+            ? FlagSpatialIndex.build(merged)
+            : this.spatialIndex.apply(changed, updated);
+        return new FlagSnapshot(version, Collections.unmodifiableList(merged), index);
+    }
+
+    /**
+     * Get all flags in the snapshot.
+     *
+     * @return Unmodifiable collection of flag data
+     */
+    public List<FlagManager.FlagData> getAllFlags() {
+        return this.flags;
+    }
+
+    /**
+     * Get a flag by handle, as of this snapshot.
+     *
+     * @param handle Handle of the flag
+     * @return The flag, or null if it was not in the registry
+     */
+    public FlagManager.FlagData getFlag(int handle) {
+        int low = 0;
+        int high = this.flags.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midHandle = this.flags.get(mid).handle();
+            if (midHandle < handle) {
+                low = mid + 1;
+            } else if (midHandle > handle) {
+                high = mid - 1;
+            } else {
+                return this.flags.get(mid);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Visit every flag in a single chunk.
+     *
+     * @param chunkX  Chunk X coordinate
+     * @param chunkZ  Chunk Z coordinate
+     * @param visitor Called once per flag in the chunk
+     */
+    public void forEachFlagInChunk(int chunkX, int chunkZ, Consumer<FlagManager.FlagData> visitor) {
+        this.spatialIndex.forEachInChunk(chunkX, chunkZ, visitor);
+    }
+
+    /**
+     * Visit every flag whose chunk is within a chunk radius of a center chunk.
+     *
+     * @param centerChunkX       Chunk X at the center of the query
+     * @param centerChunkZ       Chunk Z at the center of the query
+     * @param chunkRadiusSquared Squared radius in chunks
+     * @param visitor            Called once per flag in range
+     */
+    public void forEachFlagInChunkRadius(int centerChunkX, int centerChunkZ, int chunkRadiusSquared,
+                                         Consumer<FlagManager.FlagData> visitor) {
+        this.spatialIndex.forEachInChunkRadius(centerChunkX, centerChunkZ, chunkRadiusSquared, visitor);
+    }
+
+    /**
+     * Find the flags closest to a position, by horizontal distance.
+     *
+     * @param x     World X coordinate
+     * @param z     World Z coordinate
+     * @param count Maximum number of flags to return
+     * @return Up to count flags, nearest first
+     */
+    public List<FlagManager.FlagData> nearest(int x, int z, int count) {
+        return this.spatialIndex.nearest(x, z, count);
+    }
+
+    /**
+     * Number of flags in the snapshot.
+     */
+    public int size() {
+        return this.flags.size();
+    }
+}
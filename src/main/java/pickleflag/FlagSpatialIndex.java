@@ -0,0 +1,274 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Chunk-keyed spatial index over placed flags
+ */
+package pickleflag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Immutable spatial index that buckets flags by the chunk they stand in.
+ *
+ * Flags are sorted by a packed (chunkX, chunkZ) key, so a chunk-radius query
+ * only needs one binary search per chunk row in range followed by a linear
+ * scan of that row. Radius queries never allocate and never look at flags
+ * outside the requested square of chunks; nearest-flag queries are built on
+ * them by widening the radius.
+ *
+ * The index is part of each FlagSnapshot, which keeps it free of locking
+ * and safe to share between readers. A new snapshot usually patches the
+ * previous index with the flags that changed (see apply()) rather than
+ * sorting every flag again.
+ */
+public final class FlagSpatialIndex {
+
+    // Hytale chunks are 32 blocks wide (matches ChunkUtil.chunkCoordinate)
+    static final int CHUNK_BITS = 5;
+
+    // Largest chunk radius nearest() searches before scanning every flag (keeps radius squared in an int)
+    private static final int MAX_SEARCH_RADIUS = 1 << 15;
+
+    // Order of the index: by chunk key, then by handle within a chunk
+    private static final Comparator<FlagManager.FlagData> KEY_ORDER =
+        Comparator.comparingLong(FlagSpatialIndex::keyOf).thenComparingInt(FlagManager.FlagData::handle);
+
+    // Index with no flags, shared by every empty registry
+    static final FlagSpatialIndex EMPTY = new FlagSpatialIndex(new long[0], new FlagManager.FlagData[0]);
+
+    // Packed chunk key of each flag, sorted ascending
+    private final long[] keys;
+
+    // Flags in the same order as keys
+    private final FlagManager.FlagData[] flags;
+
+    private FlagSpatialIndex(long[] keys, FlagManager.FlagData[] flags) {
+        this.keys = keys;
+        this.flags = flags;
+    }
+
+    /**
+     * Build an index over the given flags.
+     *
+     * @param source Flags to index
+     * @return A new immutable index
+     */
+    public static FlagSpatialIndex build(Collection<FlagManager.FlagData> source) {
+        if (source.isEmpty()) {
+            return EMPTY;
+        }
+
+        FlagManager.FlagData[] sorted = source.toArray(new FlagManager.FlagData[0]);
+        Arrays.sort(sorted, KEY_ORDER);
+
+        long[] keys = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            keys[i] = keyOf(sorted[i]);
+        }
+        return new FlagSpatialIndex(keys, sorted);
+    }
+
+    /**
+     * Build a copy of this index with some flags replaced.
+     *
+     * Only the updated flags are sorted; they are then merged with the
+     * unchanged entries in one pass, so the cost is linear in the index size
+     * rather than a full sort.
+     *
+     * @param changed Handles of every flag that changed (removed, added or updated)
+     * @param updated Current records of the changed flags that still exist
+     * @return A new immutable index
+     */
+    FlagSpatialIndex apply(BitSet changed, Collection<FlagManager.FlagData> updated) {
+        FlagManager.FlagData[] added = updated.toArray(new FlagManager.FlagData[0]);
+        Arrays.sort(added, KEY_ORDER);
+
+        long[] keys = new long[this.keys.length + added.length];
+        FlagManager.FlagData[] flags = new FlagManager.FlagData[keys.length];
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i < this.flags.length; i++) {
+            FlagManager.FlagData flag = this.flags[i];
+            if (changed.get(flag.handle())) {
+                continue;
+            }
+            while (next < added.length && KEY_ORDER.compare(added[next], flag) < 0) {
+                keys[size] = keyOf(added[next]);
+                flags[size++] = added[next++];
+            }
+            keys[size] = this.keys[i];
+            flags[size++] = flag;
+        }
+        while (next < added.length) {
+            keys[size] = keyOf(added[next]);
+            flags[size++] = added[next++];
+        }
+
+        if (size == 0) {
+            return EMPTY;
+        }
+        return size == keys.length
+            ? new FlagSpatialIndex(keys, flags)
+            : new FlagSpatialIndex(Arrays.copyOf(keys, size), Arrays.copyOf(flags, size));
+    }
+
+    /**
+     * Visit every flag whose chunk lies within a circular chunk radius.
+     * Uses the same distance test as WorldMapTracker, so callers see exactly
+     * the flags the tracker would accept.
+     *
+     * @param centerChunkX       Chunk X at the center of the query
+     * @param centerChunkZ       Chunk Z at the center of the query
+     * @param chunkRadiusSquared Squared radius in chunks
+     * @param visitor            Called once per flag in range
+     */
+    public void forEachInChunkRadius(int centerChunkX, int centerChunkZ, int chunkRadiusSquared,
+                                     Consumer<FlagManager.FlagData> visitor) {
+        if (this.keys.length == 0 || chunkRadiusSquared < 0) {
+            return;
+        }
+
+        // Only visit rows between the first and last occupied chunk X
+        int radius = (int) Math.sqrt(chunkRadiusSquared);
+        int fromDx = Math.max(-radius, (int) (this.keys[0] >> 32) - centerChunkX);
+        int toDx = Math.min(radius, (int) (this.keys[this.keys.length - 1] >> 32) - centerChunkX);
+        for (int dx = fromDx; dx <= toDx; dx++) {
+            int rowRadius = (int) Math.sqrt(chunkRadiusSquared - dx * dx);
+            int chunkX = centerChunkX + dx;
+
+            long endKey = chunkKey(chunkX, centerChunkZ + rowRadius);
+            for (int i = this.lowerBound(chunkKey(chunkX, centerChunkZ - rowRadius));
+                 i < this.keys.length && this.keys[i] <= endKey; i++) {
+                visitor.accept(this.flags[i]);
+            }
+        }
+    }
+
+    /**
+     * Visit every flag in a single chunk.
+     *
+     * @param chunkX  Chunk X coordinate
+     * @param chunkZ  Chunk Z coordinate
+     * @param visitor Called once per flag in the chunk
+     */
+    public void forEachInChunk(int chunkX, int chunkZ, Consumer<FlagManager.FlagData> visitor) {
+        long key = chunkKey(chunkX, chunkZ);
+        for (int i = this.lowerBound(key); i < this.keys.length && this.keys[i] == key; i++) {
+            visitor.accept(this.flags[i]);
+        }
+    }
+
+    /**
+     * Find the flags closest to a position, by horizontal distance.
+     *
+     * Searches chunk circles of doubling radius around the position until
+     * the farthest of the flags found is closer than anything outside the
+     * circle can be, so only flags near the position are looked at.
+     *
+     * @param x     World X coordinate
+     * @param z     World Z coordinate
+     * @param count Maximum number of flags to return
+     * @return Up to count flags, nearest first
+     */
+    public List<FlagManager.FlagData> nearest(int x, int z, int count) {
+        if (this.keys.length == 0 || count <= 0) {
+            return List.of();
+        }
+
+        // Max-heap on distance, so the farthest of the current best is evicted first
+        Comparator<FlagManager.FlagData> nearestFirst =
+            Comparator.comparingLong(flag -> distanceSquared(flag, x, z));
+        PriorityQueue<FlagManager.FlagData> best = new PriorityQueue<>(count + 1, nearestFirst.reversed());
+        int[] visited = {0};
+        Consumer<FlagManager.FlagData> collect = flag -> {
+            visited[0]++;
+            best.offer(flag);
+            if (best.size() > count) {
+                best.poll();
+            }
+        };
+
+        int centerChunkX = chunkCoordinate(x);
+        int centerChunkZ = chunkCoordinate(z);
+        boolean complete = false;
+        for (int radius = 2; radius <= MAX_SEARCH_RADIUS && !complete; radius *= 2) {
+            best.clear();
+            visited[0] = 0;
+            this.forEachInChunkRadius(centerChunkX, centerChunkZ, radius * radius, collect);
+
+            // A flag outside the circle is more than (radius - 2) chunks of blocks away
+            long covered = (long) (radius - 2) << CHUNK_BITS;
+            complete = visited[0] == this.flags.length
+                || best.size() == count && distanceSquared(best.peek(), x, z) <= covered * covered;
+        }
+        if (!complete) {
+            // The flags are spread across the whole world
+            best.clear();
+            for (FlagManager.FlagData flag : this.flags) {
+                collect.accept(flag);
+            }
+        }
+
+        List<FlagManager.FlagData> result = new ArrayList<>(best);
+        result.sort(nearestFirst);
+        return result;
+    }
+
+    /**
+     * Squared horizontal distance from a flag to a position.
+     */
+    static long distanceSquared(FlagManager.FlagData flag, int x, int z) {
+        long dx = flag.x() - x;
+        long dz = flag.z() - z;
+        return dx * dx + dz * dz;
+    }
+
+    /**
+     * Number of flags in the index.
+     */
+    public int size() {
+        return this.flags.length;
+    }
+
+    /**
+     * Convert a world block coordinate to a chunk coordinate.
+     */
+    public static int chunkCoordinate(int blockCoordinate) {
+        return blockCoordinate >> CHUNK_BITS;
+    }
+
+    /**
+     * Pack chunk coordinates into a key that sorts by X, then Z.
+     * Z is sign-flipped so negative values order before positive ones.
+     */
+    static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | ((chunkZ ^ 0x80000000) & 0xFFFFFFFFL);
+    }
+
+    private static long keyOf(FlagManager.FlagData flag) {
+        return chunkKey(chunkCoordinate(flag.x()), chunkCoordinate(flag.z()));
+    }
+
+    /**
+     * Index of the first key that is not less than the given key.
+     */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = this.keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,551 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * On-disk persistence of every world's flag registry
+ */
+package pickleflag;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.foreign.Arena;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps every world's flags on disk so the full map is available right after boot,
+ * without waiting for each flag's chunk to be loaded again.
+ *
+ * Two kinds of file live in the plugin data directory:
+ * - flags.snapshot: every flag of every world as of some generation,
+ *   memory-mapped and read in one pass at startup
+ * - flags.journal.N: FlagEvents of generation N, appended as they happen
+ *
+ * Startup reads the snapshot, replays the journals newer than its
+ * generation, and then compacts: a new generation starts and a fresh snapshot is
+ * written from the registries. Compaction also runs in the background once
+ * the journal grows past COMPACT_THRESHOLD_BYTES, and once more on shutdown.
+ *
+ * Changed flags are queued by the thread that changed them; a single
+ * writer thread encodes the current state of everything queued since its
+ * last run and appends it with one gathering write. The world thread never
+ * blocks on the journal, and a batch commit of many flags costs one write
+ * rather than one per flag. Because records are encoded from the registry
+ * when written, not from the event, two threads changing the same flag
+ * cannot leave the older state last in the journal.
+ *
+ * Journal records are length-prefixed and checksummed. A record torn by a
+ * crash ends the replay of its journal; everything before it is kept.
+ * Appends are not forced to disk, so a power loss (not a server crash) can
+ * lose the most recent changes; those flags are registered again when
+ * their chunks load.
+ */
+public class FlagStore {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    // File names inside the data directory
+    static final String SNAPSHOT_FILE = "flags.snapshot";
+    static final String JOURNAL_PREFIX = "flags.journal.";
+
+    // Snapshot header: magic ("PFSN"), format version
+    private static final int SNAPSHOT_MAGIC = 0x5046534E;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    // Journal record operations
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+
+    // Journal size that triggers a background compaction
+    static final long COMPACT_THRESHOLD_BYTES = 4L * 1024 * 1024;
+
+    // Directory holding the snapshot and journals
+    private final Path directory;
+
+    // Registries to restore and persist
+    private final FlagManager flagManager;
+
+    // Changed flags waiting for the writer
+    private final Queue<Dirty> pending = new ConcurrentLinkedQueue<>();
+
+    // Set while a drain of pending records is queued on the writer
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    // Single thread appending pending records to the journal
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PickleFlag-Journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Set while a background compaction is queued or running
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    // Held for a whole compaction so snapshots are written in generation order
+    private final Object compactLock = new Object();
+
+    // Generation of the latest snapshot; the open journal is the next one (guarded by this)
+    private long generation;
+
+    // Journal receiving new events (guarded by this, null = closed)
+    private FileChannel journal;
+
+    // Bytes written to the open journal (guarded by this)
+    private long journalBytes;
+
+    // Removes the event subscription on close
+    private Runnable unsubscribe;
+
+    /**
+     * Create a store for a data directory. Nothing is read until load().
+     *
+     * @param directory   Plugin data directory
+     * @param flagManager Manager whose registries are restored and persisted
+     */
+    public FlagStore(Path directory, FlagManager flagManager) {
+        this.directory = directory;
+        this.flagManager = flagManager;
+    }
+
+    /**
+     * Restore every saved flag into the registries, then start journaling changes.
+     * Call once, before any world registers flags.
+     *
+     * @return Number of flags restored
+     * @throws IOException if the directory cannot be used
+     */
+    public int load() throws IOException {
+        Files.createDirectories(this.directory);
+
+        Map<String, Map<UUID, SavedFlag>> worlds = new LinkedHashMap<>();
+        long snapshotGeneration = this.readSnapshot(worlds);
+
+        long lastGeneration = snapshotGeneration;
+        for (long journalGeneration : this.journalGenerations()) {
+            if (journalGeneration > snapshotGeneration) {
+                this.replayJournal(this.journalPath(journalGeneration), worlds);
+                lastGeneration = Math.max(lastGeneration, journalGeneration);
+            }
+        }
+
+        int restored = 0;
+        FlagIds flagIds = this.flagManager.getFlagIds();
+        for (Map.Entry<String, Map<UUID, SavedFlag>> world : worlds.entrySet()) {
+            // Restore each world as one registry version
+            FlagBatch batch = this.flagManager.batch(world.getKey());
+            for (SavedFlag flag : world.getValue().values()) {
+                batch.add(flagIds.intern(flag.uuid()), flag.name(), flag.x(), flag.y(), flag.z());
+                restored++;
+            }
+            batch.commit();
+        }
+
+        synchronized (this) {
+            this.generation = lastGeneration;
+            this.openJournal(lastGeneration + 1);
+        }
+        this.unsubscribe = this.flagManager.subscribe(this::onFlagEvent);
+        this.compact();
+        return restored;
+    }
+
+    /**
+     * Queue a changed flag for the journal writer.
+     * Called on whichever thread made the change.
+     */
+    public void onFlagEvent(FlagEvent event) {
+        this.pending.add(new Dirty(event.worldName(), event.flag().handle()));
+        if (this.draining.compareAndSet(false, true)) {
+            try {
+                this.writer.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Closing; close() writes whatever is still pending
+                this.draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Append the current state of every pending flag to the journal in one
+     * gathering write. Runs on the writer thread, and from flush().
+     */
+    private void drain() {
+        this.draining.set(false);
+        Set<Dirty> dirty = new LinkedHashSet<>();
+        for (Dirty flag = this.pending.poll(); flag != null; flag = this.pending.poll()) {
+            dirty.add(flag);
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        FlagIds flagIds = this.flagManager.getFlagIds();
+        boolean full;
+        synchronized (this) {
+            if (this.journal == null) {
+                return;
+            }
+
+            // Encoded under the lock so a record written after a compaction's
+            // journal switch is never older than the snapshot it follows
+            ByteBuffer[] buffers = new ByteBuffer[dirty.size()];
+            int count = 0;
+            for (Dirty flag : dirty) {
+                FlagManager.FlagData current = this.flagManager.getRegistry(flag.worldName()).getFlag(flag.handle());
+                UUID uuid = flagIds.uuidOf(flag.handle());
+                buffers[count++] = ByteBuffer.wrap(current == null
+                    ? encodeRecord(OP_REMOVE, flag.worldName(), uuid, null)
+                    : encodeRecord(OP_PUT, flag.worldName(), uuid, current));
+            }
+            ByteBuffer last = buffers[buffers.length - 1];
+            try {
+                while (last.hasRemaining()) {
+                    this.journalBytes += this.journal.write(buffers);
+                }
+            } catch (IOException e) {
+                LOGGER.atSevere().withCause(e).log("Failed to journal %s flag changes", buffers.length);
+            }
+            full = this.journalBytes >= COMPACT_THRESHOLD_BYTES;
+        }
+
+        if (full && this.compacting.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    this.compact();
+                } catch (IOException e) {
+                    LOGGER.atSevere().withCause(e).log("Failed to compact flag store");
+                } finally {
+                    this.compacting.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Write a new snapshot of every registry and delete the journals it covers.
+     *
+     * A new journal generation is started first, so changes made while the
+     * snapshot is being written land in the new journal and are replayed on
+     * top of the snapshot. Replaying a change the snapshot already holds is
+     * harmless: records carry the whole flag, not a delta. Flags still
+     * queued for the writer land in the new journal with their state at
+     * the time they are written, which is at least as new as the snapshot's.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void compact() throws IOException {
+        synchronized (this.compactLock) {
+            long snapshotGeneration;
+            Map<String, List<FlagManager.FlagData>> worlds = new LinkedHashMap<>();
+            synchronized (this) {
+                if (this.journal == null) {
+                    return;
+                }
+                this.journal.force(false);
+                snapshotGeneration = this.generation + 1;
+                this.openJournal(snapshotGeneration + 1);
+                this.generation = snapshotGeneration;
+
+                // Taken after the journal switch: every change missing here is in the new journal
+                for (FlagRegistry registry : this.flagManager.getRegistries()) {
+                    worlds.put(registry.getWorldName(), registry.snapshot().getAllFlags());
+                }
+            }
+
+            this.writeSnapshot(snapshotGeneration, worlds);
+            for (long journalGeneration : this.journalGenerations()) {
+                if (journalGeneration <= snapshotGeneration) {
+                    Files.deleteIfExists(this.journalPath(journalGeneration));
+                }
+            }
+        }
+    }
+
+    /**
+     * Write every queued change to the journal and force it to disk.
+     *
+     * @throws IOException if the journal cannot be forced
+     */
+    void flush() throws IOException {
+        this.drain();
+        synchronized (this) {
+            if (this.journal != null) {
+                this.journal.force(false);
+            }
+        }
+    }
+
+    /**
+     * Stop journaling, write the pending records, compact one last time and close the journal.
+     */
+    public void close() throws IOException {
+        if (this.unsubscribe != null) {
+            this.unsubscribe.run();
+            this.unsubscribe = null;
+        }
+        this.writer.shutdown();
+        try {
+            this.writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.drain();
+        try {
+            this.compact();
+        } finally {
+            synchronized (this) {
+                if (this.journal != null) {
+                    this.journal.close();
+                    this.journal = null;
+                }
+            }
+        }
+    }
+
+    // ==================== Snapshot ====================
+
+    /**
+     * Read the snapshot into the given map by memory-mapping it.
+     *
+     * The mapping belongs to a confined arena that is closed before
+     * returning, so the file is unmapped at once rather than whenever the
+     * buffer is collected; Windows refuses to replace a mapped file, which
+     * would make the next compaction fail.
+     *
+     * @return Generation of the snapshot, or 0 if there is none
+     */
+    private long readSnapshot(Map<String, Map<UUID, SavedFlag>> worlds) throws IOException {
+        Path path = this.directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) {
+            return 0L;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             Arena arena = Arena.ofConfined()) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena).asByteBuffer();
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a flag snapshot: " + path);
+            }
+            long snapshotGeneration = buffer.getLong();
+            int worldCount = buffer.getInt();
+            for (int w = 0; w < worldCount; w++) {
+                Map<UUID, SavedFlag> flags = worlds.computeIfAbsent(readString(buffer), name -> new HashMap<>());
+                int flagCount = buffer.getInt();
+                for (int f = 0; f < flagCount; f++) {
+                    SavedFlag flag = readFlag(buffer);
+                    flags.put(flag.uuid(), flag);
+                }
+            }
+            return snapshotGeneration;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated flag snapshot: " + path, e);
+        }
+    }
+
+    /**
+     * Write a snapshot to a temporary file, then move it over the old one.
+     */
+    private void writeSnapshot(long snapshotGeneration, Map<String, List<FlagManager.FlagData>> worlds)
+        throws IOException {
+        Path path = this.directory.resolve(SNAPSHOT_FILE);
+        Path temporary = this.directory.resolve(SNAPSHOT_FILE + ".tmp");
+        FlagIds flagIds = this.flagManager.getFlagIds();
+
+        try (OutputStream file = Files.newOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(snapshotGeneration);
+            out.writeInt(worlds.size());
+            for (Map.Entry<String, List<FlagManager.FlagData>> world : worlds.entrySet()) {
+                writeString(out, world.getKey());
+                out.writeInt(world.getValue().size());
+                for (FlagManager.FlagData flag : world.getValue()) {
+                    writeFlag(out, flagIds.uuidOf(flag.handle()), flag);
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ==================== Journal ====================
+
+    /**
+     * Start appending to the journal of a generation. Caller holds the lock.
+     */
+    private void openJournal(long journalGeneration) throws IOException {
+        FileChannel next = FileChannel.open(this.journalPath(journalGeneration),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (this.journal != null) {
+            this.journal.close();
+        }
+        this.journal = next;
+        this.journalBytes = next.size();
+    }
+
+    /**
+     * Apply every intact record of a journal to the given map.
+     */
+    private void replayJournal(Path path, Map<String, Map<UUID, SavedFlag>> worlds) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            ByteBuffer record = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            try {
+                byte op = record.get();
+                Map<UUID, SavedFlag> flags = worlds.computeIfAbsent(readString(record), name -> new HashMap<>());
+                if (op == OP_REMOVE) {
+                    flags.remove(new UUID(record.getLong(), record.getLong()));
+                } else if (op == OP_PUT) {
+                    SavedFlag flag = readFlag(record);
+                    flags.put(flag.uuid(), flag);
+                }
+            } catch (BufferUnderflowException e) {
+                break;
+            }
+        }
+
+        if (buffer.hasRemaining()) {
+            LOGGER.atWarning().log("Ignored %s damaged bytes at the end of %s", buffer.remaining(), path);
+        }
+    }
+
+    /**
+     * Encode one journal record: length, CRC32, then the operation payload.
+     */
+    private static byte[] encodeRecord(byte op, String worldName, UUID uuid, FlagManager.FlagData flag) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeByte(op);
+            writeString(out, worldName);
+            if (flag == null) {
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+            } else {
+                writeFlag(out, uuid, flag);
+            }
+
+            byte[] record = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(record, 8, record.length - 8);
+            ByteBuffer.wrap(record).putInt(record.length - 8).putInt((int) crc.getValue());
+            return record;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // ByteArrayOutputStream never throws
+        }
+    }
+
+    /**
+     * Generations of every journal file in the directory, oldest first.
+     */
+    private List<Long> journalGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, JOURNAL_PREFIX + "*")) {
+            for (Path file : files) {
+                try {
+                    generations.add(Long.parseLong(file.getFileName().toString().substring(JOURNAL_PREFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        generations.sort(null);
+        return generations;
+    }
+
+    private Path journalPath(long journalGeneration) {
+        return this.directory.resolve(JOURNAL_PREFIX + journalGeneration);
+    }
+
+    // ==================== Encoding ====================
+
+    private static void writeFlag(DataOutputStream out, UUID uuid, FlagManager.FlagData flag) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+        out.writeInt(flag.x());
+        out.writeInt(flag.y());
+        out.writeInt(flag.z());
+        writeString(out, flag.name());
+    }
+
+    private static SavedFlag readFlag(ByteBuffer buffer) {
+        UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+        int x = buffer.getInt();
+        int y = buffer.getInt();
+        int z = buffer.getInt();
+        return new SavedFlag(uuid, readString(buffer), x, y, z);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A flag whose current state is waiting to be journaled.
+     */
+    private record Dirty(String worldName, int handle) {
+    }
+
+    /**
+     * A flag as read from disk, before it is given a handle.
+     */
+    private record SavedFlag(UUID uuid, String name, int x, int y, int z) {
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Loads the chunks around a flag before a player is teleported to it
+ */
+package pickleflag;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prewarms teleport destinations.
+ *
+ * Teleporting a player into a chunk that is not resident makes the world
+ * thread load or generate it on the spot, stalling every player in the
+ * world. The teleporter asks the world for the destination column and its
+ * neighbours through getChunkAsync, which loads them off the tick thread,
+ * and hands back a future that completes once all of them are in memory.
+ *
+ * Loads are shared: while a destination is loading, every other teleport to
+ * the same chunk (several players heading for one flag, or one player
+ * repeating the command) waits on the same future instead of queueing the
+ * chunks again. The entry is dropped as soon as the load finishes, so a
+ * later teleport sees the chunks resident and completes at once.
+ */
+public class FlagTeleporter {
+
+    // Chunk columns loaded on each side of the destination column
+    static final int PREWARM_RADIUS = 1;
+
+    // Map of destination -> load in progress
+    private final Map<Destination, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Load the chunk columns around a block position.
+     *
+     * @param world World to load the chunks in
+     * @param x     Destination world X coordinate
+     * @param z     Destination world Z coordinate
+     * @return Future completed once every column is resident, or failed if one could not be loaded
+     */
+    public CompletableFuture<Void> prewarm(World world, int x, int z) {
+        Destination destination = new Destination(world.getName(), ChunkUtil.indexChunkFromBlock(x, z));
+        CompletableFuture<Void> existing = this.inFlight.get(destination);
+        if (existing != null) {
+            return existing;
+        }
+
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        existing = this.inFlight.putIfAbsent(destination, started);
+        if (existing != null) {
+            return existing;
+        }
+
+        // Register before loading, so a load that completes at once still clears its entry
+        started.whenComplete((ignored, error) -> this.inFlight.remove(destination, started));
+        try {
+            loadColumns(world, ChunkUtil.chunkCoordinate(x), ChunkUtil.chunkCoordinate(z))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        started.completeExceptionally(error);
+                    } else {
+                        started.complete(null);
+                    }
+                });
+        } catch (RuntimeException e) {
+            // getChunkAsync refused the request outright; fail the shared load so its entry is dropped
+            started.completeExceptionally(e);
+        }
+        return started;
+    }
+
+    /**
+     * Number of destinations currently loading.
+     */
+    public int inFlightCount() {
+        return this.inFlight.size();
+    }
+
+    private static CompletableFuture<Void> loadColumns(World world, int centerChunkX, int centerChunkZ) {
+        int side = PREWARM_RADIUS * 2 + 1;
+        CompletableFuture<?>[] columns = new CompletableFuture<?>[side * side];
+        int i = 0;
+        for (int dx = -PREWARM_RADIUS; dx <= PREWARM_RADIUS; dx++) {
+            for (int dz = -PREWARM_RADIUS; dz <= PREWARM_RADIUS; dz++) {
+                columns[i++] = world.getChunkAsync(ChunkUtil.indexChunk(centerChunkX + dx, centerChunkZ + dz));
+            }
+        }
+        return CompletableFuture.allOf(columns);
+    }
+
+    /**
+     * Center chunk column of a teleport destination.
+     */
+    private record Destination(String worldName, long chunkIndex) {
+    }
+}
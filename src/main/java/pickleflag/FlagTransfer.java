@@ -0,0 +1,484 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Streaming export and import of the flag registries
+ */
+package pickleflag;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Exports every world's flags to a dump file and imports them back, for
+ * backups, migrations between servers and audits.
+ *
+ * Two formats are supported, chosen by file extension:
+ * - .ndjson: one JSON object per line, {"world","id","name","x","y","z"}
+ * - .bin: a compact binary stream (see writeBinary)
+ *
+ * Transfers run on virtual threads and stream through NIO file channels, so
+ * the world threads never wait for them and the dump is never held in memory
+ * as a whole:
+ * - Export writes from the FlagSnapshot of each registry taken when the
+ *   export starts, so concurrent changes cannot tear it. It writes to a
+ *   temporary file that replaces the target only once complete.
+ * - Import reads the dump twice. The first pass only checks that every
+ *   record parses (and, for binary dumps, that none is missing), so a
+ *   malformed or truncated dump changes nothing. The second pass reads one
+ *   flag at a time and applies them in FlagBatches of at most
+ *   IMPORT_BATCH_SIZE flags per world, so readers see a few large registry
+ *   versions instead of one per flag and memory stays bounded. Only if the
+ *   file changes or cannot be read between the two passes can an import be
+ *   left partial. Imported names replace the registry's. Flags whose blocks do not exist
+ *   in the world are dropped again by FlagReconciliation when their chunk
+ *   loads.
+ *
+ * Dump files live in the plugin's exports directory; names that would
+ * resolve outside it are rejected.
+ */
+public final class FlagTransfer {
+
+    // Flags applied per batch and world during an import
+    static final int IMPORT_BATCH_SIZE = 1000;
+
+    // Binary dump header: magic ("PFEX") and format version
+    private static final int BINARY_MAGIC = 0x50464558;
+    private static final int BINARY_VERSION = 1;
+
+    // Binary record tags
+    private static final byte TAG_END = 0;
+    private static final byte TAG_WORLD = 1;
+    private static final byte TAG_FLAG = 2;
+
+    // Buffer size for channel streams
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Directory dump files are read from and written to
+    private final Path directory;
+
+    // Source of the registries and flag IDs
+    private final FlagManager flagManager;
+
+    // Runs each transfer on its own virtual thread
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Create a transfer service.
+     *
+     * @param directory   Directory for dump files (created on first export)
+     * @param flagManager Source of the registries and flag IDs
+     */
+    public FlagTransfer(Path directory, FlagManager flagManager) {
+        this.directory = directory;
+        this.flagManager = flagManager;
+    }
+
+    /**
+     * Resolve a dump file name inside the exports directory.
+     *
+     * @param fileName File name given by the user, with a .ndjson or .bin extension
+     * @return The file's path
+     * @throws IllegalArgumentException if the name leaves the directory or has an unknown extension
+     */
+    public Path resolve(String fileName) {
+        Path path = this.directory.resolve(fileName).normalize();
+        if (!path.startsWith(this.directory.normalize()) || path.equals(this.directory.normalize())) {
+            throw new IllegalArgumentException("File must be inside " + this.directory);
+        }
+        Format.of(path);
+        return path;
+    }
+
+    /**
+     * Export every world's flags, as of now, to a dump file.
+     *
+     * @param path Target file, from resolve()
+     * @return Future with the number of flags written
+     */
+    public CompletableFuture<Integer> export(Path path) {
+        // Take the snapshots now, on the caller's thread, so the dump reflects this moment
+        Map<String, FlagSnapshot> snapshots = new LinkedHashMap<>();
+        for (FlagRegistry registry : this.flagManager.getRegistries()) {
+            snapshots.put(registry.getWorldName(), registry.snapshot());
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Files.createDirectories(path.getParent());
+                Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+                int written;
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    written = Format.of(path) == Format.NDJSON
+                        ? this.writeJson(channel, snapshots)
+                        : this.writeBinary(channel, snapshots);
+                    channel.force(true);
+                }
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return written;
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not export flags to " + path, e);
+            }
+        }, this.executor);
+    }
+
+    /**
+     * Import a dump file into the registries.
+     *
+     * @param path Dump file, from resolve()
+     * @return Future with the number of flags read
+     */
+    public CompletableFuture<Integer> importFrom(Path path) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                this.read(path, channel, new Importer(false));
+                channel.position(0);
+                Importer importer = new Importer(true);
+                this.read(path, channel, importer);
+                importer.finish();
+                return importer.count;
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not import flags from " + path, e);
+            }
+        }, this.executor);
+    }
+
+    /**
+     * Read a whole dump into an importer, in the format given by its file name.
+     */
+    private void read(Path path, FileChannel channel, Importer importer) throws IOException {
+        if (Format.of(path) == Format.NDJSON) {
+            this.readJson(channel, importer);
+        } else {
+            this.readBinary(channel, importer);
+        }
+    }
+
+    /**
+     * Stop accepting transfers. Transfers already running finish on their own.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    // ==================== NDJSON ====================
+
+    private int writeJson(FileChannel channel, Map<String, FlagSnapshot> snapshots) throws IOException {
+        FlagIds flagIds = this.flagManager.getFlagIds();
+        Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+        int written = 0;
+        StringBuilder line = new StringBuilder(128);
+        for (Map.Entry<String, FlagSnapshot> world : snapshots.entrySet()) {
+            for (FlagManager.FlagData flag : world.getValue().getAllFlags()) {
+                line.setLength(0);
+                line.append("{\"world\":");
+                appendJsonString(line, world.getKey());
+                line.append(",\"id\":\"").append(flagIds.toString(flag.handle())).append("\",\"name\":");
+                appendJsonString(line, flag.name());
+                line.append(",\"x\":").append(flag.x())
+                    .append(",\"y\":").append(flag.y())
+                    .append(",\"z\":").append(flag.z())
+                    .append("}\n");
+                out.append(line);
+                written++;
+            }
+        }
+        out.flush();
+        return written;
+    }
+
+    private void readJson(FileChannel channel, Importer importer) throws IOException {
+        BufferedReader in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                Map<String, Object> fields = new JsonLine(line).parseObject();
+                importer.accept((String) fields.get("world"), UUID.fromString((String) fields.get("id")),
+                    (String) fields.get("name"), (Integer) fields.get("x"), (Integer) fields.get("y"),
+                    (Integer) fields.get("z"));
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed flag on line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Parser for one dump line: a flat JSON object of strings and integers.
+     */
+    private static final class JsonLine {
+
+        private final String text;
+        private int position;
+
+        JsonLine(String text) {
+            this.text = text;
+        }
+
+        Map<String, Object> parseObject() {
+            Map<String, Object> fields = new HashMap<>();
+            this.expect('{');
+            if (this.peek() == '}') {
+                this.position++;
+                return fields;
+            }
+            do {
+                String key = this.parseString();
+                this.expect(':');
+                char next = this.peek();
+                fields.put(key, next == '"' ? this.parseString() : this.parseInt());
+            } while (this.consumeComma());
+            this.expect('}');
+            return fields;
+        }
+
+        private String parseString() {
+            this.expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = this.next();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = this.next();
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        value.append((char) Integer.parseInt(this.text.substring(this.position, this.position + 4), 16));
+                        this.position += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+        }
+
+        private int parseInt() {
+            int start = this.position;
+            if (this.position < this.text.length() && this.text.charAt(this.position) == '-') {
+                this.position++;
+            }
+            while (this.position < this.text.length() && Character.isDigit(this.text.charAt(this.position))) {
+                this.position++;
+            }
+            return Integer.parseInt(this.text.substring(start, this.position));
+        }
+
+        private boolean consumeComma() {
+            if (this.peek() == ',') {
+                this.position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char expected) {
+            if (this.peek() != expected) {
+                throw new IllegalArgumentException("expected '" + expected + "' at column " + (this.position + 1));
+            }
+            this.position++;
+        }
+
+        private char peek() {
+            while (this.position < this.text.length() && Character.isWhitespace(this.text.charAt(this.position))) {
+                this.position++;
+            }
+            if (this.position >= this.text.length()) {
+                throw new IllegalArgumentException("unexpected end of line");
+            }
+            return this.text.charAt(this.position);
+        }
+
+        private char next() {
+            if (this.position >= this.text.length()) {
+                throw new IllegalArgumentException("unexpected end of line");
+            }
+            return this.text.charAt(this.position++);
+        }
+    }
+
+    // ==================== Binary ====================
+
+    /**
+     * Binary layout: magic, version, then tagged records. A world record
+     * (name) applies to the flag records after it; a flag record holds the
+     * UUID as two longs, the name and the position. An end record carries
+     * the flag count, so truncated dumps are detected.
+     */
+    private int writeBinary(FileChannel channel, Map<String, FlagSnapshot> snapshots) throws IOException {
+        FlagIds flagIds = this.flagManager.getFlagIds();
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        out.writeInt(BINARY_MAGIC);
+        out.writeInt(BINARY_VERSION);
+        int written = 0;
+        for (Map.Entry<String, FlagSnapshot> world : snapshots.entrySet()) {
+            out.writeByte(TAG_WORLD);
+            out.writeUTF(world.getKey());
+            for (FlagManager.FlagData flag : world.getValue().getAllFlags()) {
+                UUID uuid = flagIds.uuidOf(flag.handle());
+                out.writeByte(TAG_FLAG);
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+                out.writeUTF(flag.name());
+                out.writeInt(flag.x());
+                out.writeInt(flag.y());
+                out.writeInt(flag.z());
+                written++;
+            }
+        }
+        out.writeByte(TAG_END);
+        out.writeInt(written);
+        out.flush();
+        return written;
+    }
+
+    private void readBinary(FileChannel channel, Importer importer) throws IOException {
+        DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+        if (in.readInt() != BINARY_MAGIC || in.readInt() != BINARY_VERSION) {
+            throw new IOException("Not a flag dump, or from an unsupported version");
+        }
+        String worldName = null;
+        while (true) {
+            byte tag = in.readByte();
+            if (tag == TAG_END) {
+                int expected = in.readInt();
+                if (expected != importer.count) {
+                    throw new IOException("Dump holds " + importer.count + " flags, expected " + expected);
+                }
+                return;
+            } else if (tag == TAG_WORLD) {
+                worldName = in.readUTF();
+            } else if (tag == TAG_FLAG && worldName != null) {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                importer.accept(worldName, uuid, in.readUTF(), in.readInt(), in.readInt(), in.readInt());
+            } else {
+                throw new IOException("Corrupt flag dump: unexpected record " + tag);
+            }
+        }
+    }
+
+    // ==================== Import ====================
+
+    /**
+     * Collects imported flags into per-world batches, committing each batch
+     * when it reaches IMPORT_BATCH_SIZE and the rest in finish(). A
+     * checking importer only counts the flags it is given.
+     */
+    private final class Importer {
+
+        // Map of world name -> batch being filled
+        private final Map<String, FlagBatch> batches = new HashMap<>();
+
+        // False for the checking pass, which changes nothing
+        private final boolean apply;
+
+        // Flags read so far
+        private int count;
+
+        Importer(boolean apply) {
+            this.apply = apply;
+        }
+
+        void accept(String worldName, UUID uuid, String name, int x, int y, int z) {
+            if (worldName == null || name == null) {
+                throw new IllegalArgumentException("flag without world or name");
+            }
+            if (!this.apply) {
+                this.count++;
+                return;
+            }
+            FlagBatch batch = this.batches.computeIfAbsent(worldName, FlagTransfer.this.flagManager::batch);
+            int handle = FlagTransfer.this.flagManager.getFlagIds().intern(uuid);
+            batch.add(handle, name, x, y, z);
+            batch.rename(handle, name);
+            this.count++;
+            // Each flag records an add and a rename
+            if (batch.size() >= IMPORT_BATCH_SIZE * 2) {
+                batch.commit();
+            }
+        }
+
+        /**
+         * Commit the flags still waiting in partly filled batches.
+         * Called only once the whole dump has been read.
+         */
+        void finish() {
+            for (FlagBatch batch : this.batches.values()) {
+                batch.commit();
+            }
+        }
+    }
+
+    /**
+     * Dump file format, from the file extension.
+     */
+    private enum Format {
+        NDJSON,
+        BINARY;
+
+        static Format of(Path path) {
+            String fileName = path.getFileName().toString();
+            if (fileName.endsWith(".ndjson")) {
+                return NDJSON;
+            }
+            if (fileName.endsWith(".bin")) {
+                return BINARY;
+            }
+            throw new IllegalArgumentException("Dump files must end in .ndjson or .bin");
+        }
+    }
+}
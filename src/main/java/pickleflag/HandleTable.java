@@ -0,0 +1,160 @@
+/*
+ * Pickle Pirate Flag Mod for Hytale
+ * Concurrent table keyed by flag handle
+ */
+package pickleflag;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free map from flag handle to value, stored as lazily allocated pages.
+ *
+ * Handles from FlagIds are dense, so a paged array is both smaller and faster
+ * than a hash map: lookups are two array reads with no hashing or boxing,
+ * and updates are a single compare-and-set. Pages are only allocated for
+ * handle ranges that are actually used.
+ *
+ * @param <V> Value type
+ */
+public final class HandleTable<V> {
+
+    // 4096 entries per page, 4096 pages: room for 16M handles
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MAX_PAGES = 1 << 12;
+
+    // Page directory, pages created on first write
+    private final AtomicReferenceArray<AtomicReferenceArray<V>> pages = new AtomicReferenceArray<>(MAX_PAGES);
+
+    // Number of non-null entries
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Get the value for a handle.
+     *
+     * @return The value, or null if none
+     */
+    public V get(int handle) {
+        AtomicReferenceArray<V> page = this.pages.get(handle >>> PAGE_BITS);
+        return page != null ? page.get(handle & PAGE_MASK) : null;
+    }
+
+    /**
+     * Set the value for a handle if it has none.
+     *
+     * @return The existing value, or null if the new value was stored
+     */
+    public V putIfAbsent(int handle, V value) {
+        AtomicReferenceArray<V> page = this.page(handle);
+        int slot = handle & PAGE_MASK;
+        while (true) {
+            V existing = page.get(slot);
+            if (existing != null) {
+                return existing;
+            }
+            if (page.compareAndSet(slot, null, value)) {
+                this.size.incrementAndGet();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Set the value for a handle, replacing any existing value.
+     *
+     * @return The previous value, or null if none
+     */
+    public V put(int handle, V value) {
+        V previous = this.page(handle).getAndSet(handle & PAGE_MASK, value);
+        if (previous == null) {
+            this.size.incrementAndGet();
+        }
+        return previous;
+    }
+
+    /**
+     * Replace a value only if the handle still maps to the expected instance.
+     *
+     * @return true if the value was replaced
+     */
+    public boolean replace(int handle, V expected, V value) {
+        AtomicReferenceArray<V> page = this.pages.get(handle >>> PAGE_BITS);
+        return page != null && page.compareAndSet(handle & PAGE_MASK, expected, value);
+    }
+
+    /**
+     * Remove the value for a handle.
+     *
+     * @return The removed value, or null if none
+     */
+    public V remove(int handle) {
+        AtomicReferenceArray<V> page = this.pages.get(handle >>> PAGE_BITS);
+        if (page == null) {
+            return null;
+        }
+        V previous = page.getAndSet(handle & PAGE_MASK, null);
+        if (previous != null) {
+            this.size.decrementAndGet();
+        }
+        return previous;
+    }
+
+    /**
+     * Remove the value for a handle only if it is still the expected instance.
+     *
+     * @return true if the value was removed
+     */
+    public boolean remove(int handle, V expected) {
+        AtomicReferenceArray<V> page = this.pages.get(handle >>> PAGE_BITS);
+        if (page == null || !page.compareAndSet(handle & PAGE_MASK, expected, null)) {
+            return false;
+        }
+        this.size.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Visit every value in handle order. Weakly consistent with concurrent writes.
+     */
+    public void forEach(Consumer<V> visitor) {
+        for (int p = 0; p < MAX_PAGES; p++) {
+            AtomicReferenceArray<V> page = this.pages.get(p);
+            if (page == null) {
+                continue;
+            }
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                V value = page.get(i);
+                if (value != null) {
+                    visitor.accept(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of handles with a value.
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * Check whether no handle has a value.
+     */
+    public boolean isEmpty() {
+        return this.size.get() == 0;
+    }
+
+    private AtomicReferenceArray<V> page(int handle) {
+        int index = handle >>> PAGE_BITS;
+        AtomicReferenceArray<V> page = this.pages.get(index);
+        if (page == null) {
+            this.pages.compareAndSet(index, null, new AtomicReferenceArray<>(PAGE_SIZE));
+            page = this.pages.get(index);
+        }
+        return page;
+    }
+}
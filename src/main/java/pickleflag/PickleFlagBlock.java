@@ -27,6 +27,9 @@ import java.util.UUID;
  * - Display name (for map marker)
  * - Animation phase for the waving flag effect
  *
+ * Ticks back off exponentially while no player is within detection range
+ * (see FlagDormancy), so distant flags cost almost nothing to keep loaded.
+ *
  * The component is serialized using Hytale's BuilderCodec system,
  * which handles saving/loading to the world file.
  */
@@ -34,13 +37,7 @@ public class PickleFlagBlock implements Component<ChunkStore> {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
-    // Discovery radius (blocks) - how close player needs to be to discover the flag
-    private static final double DISCOVERY_RADIUS_SQUARED = 25.0; // 5 blocks
-
-    // Detection radius (blocks) - how far to check for players during tick
-    private static final double DETECTION_RADIUS = 50.0;
-
-    // Tick interval in seconds
+    // Tick interval in seconds while a player is near
     private static final long TICK_INTERVAL_SECONDS = 5;
 
     /**
@@ -52,7 +49,10 @@ public class PickleFlagBlock implements Component<ChunkStore> {
         // Flag UUID - unique identifier for this flag instance
         .append(
             new KeyedCodec<>("FlagUUID", Codec.UUID_BINARY),
-            (block, uuid) -> block.flagUniqueId = uuid,
+            (block, uuid) -> {
+                block.flagUniqueId = uuid;
+                block.flagHandle = FlagIds.NONE;
+            },
             block -> block.flagUniqueId
         ).add()
         // Flag name - display name shown on map
@@ -78,6 +78,12 @@ public class PickleFlagBlock implements Component<ChunkStore> {
     // Current animation phase (0.0 to 1.0)
     private float animationPhase = 0.0f;
 
+    // Consecutive ticks with no player in detection range (runtime only)
+    private int idleTicks = 0;
+
+    // Handle of flagUniqueId in FlagIds, resolved on first use (runtime only, -1 = unresolved)
+    private int flagHandle = FlagIds.NONE;
+
     /**
      * Default constructor (required for CODEC).
      */
@@ -96,32 +102,43 @@ public class PickleFlagBlock implements Component<ChunkStore> {
         // Update animation phase (wraps around 0.0 to 1.0)
         this.animationPhase = (this.animationPhase + 0.1f) % 1.0f;
 
-        // Sync name from manager (may have been updated)
-        FlagManager.FlagData flagData = PickleFlagPlugin.get().getFlagManager()
-            .getFlag(this.getFlagUniqueId());
-        if (flagData != null) {
-            this.flagName = flagData.name();
+        // Renames are pushed to the block by a FlagEvent listener, no need to poll the registry here
+        FlagRegistry registry = PickleFlagPlugin.get().getFlagManager().getRegistry(world.getName());
+
+        // Back off while nobody is around; a player entering range wakes the flag early
+        FlagDormancy dormancy = registry.getDormancy();
+        if (dormancy.isPlayerNear(x, z)) {
+            this.idleTicks = 0;
+            dormancy.clearDormant(this.getFlagHandle());
+        } else {
+            this.idleTicks++;
+            dormancy.markDormant(this.getFlagHandle());
         }
 
-        // TODO: Player discovery feature disabled due to generic type issues
-        // The Store/SpatialResource API uses complex generics that need proper typing.
-        // For now, flags will appear on the map but won't trigger proximity notifications.
-        //
-        // Future implementation should:
-        // 1. Get EntityStore properly typed: Store<EntityStore> entityStore = world.getEntityStore().getStore();
-        // 2. Use correct generic types for SpatialResource and Ref<EntityStore>
-        // 3. Query nearby players and check discovery status
+        // Player discovery is player-driven (see FlagDiscoverySystem), flags don't poll for players
     }
 
     /**
      * Get the unique identifier for this flag.
      * Generates a new UUID if one doesn't exist yet.
      */
-    public String getFlagUniqueId() {
+    public UUID getFlagUniqueId() {
         if (this.flagUniqueId == null) {
             this.flagUniqueId = UUID.randomUUID();
         }
-        return this.flagUniqueId.toString();
+        return this.flagUniqueId;
+    }
+
+    /**
+     * Get the compact handle for this flag, used for all registry lookups.
+     * Resolved from the UUID once and cached.
+     */
+    public int getFlagHandle() {
+        if (this.flagHandle == FlagIds.NONE) {
+            this.flagHandle = PickleFlagPlugin.get().getFlagManager().getFlagIds()
+                .intern(this.getFlagUniqueId());
+        }
+        return this.flagHandle;
     }
 
     /**
@@ -150,6 +167,7 @@ public class PickleFlagBlock implements Component<ChunkStore> {
 
     /**
      * Calculate when this block should next be ticked.
+     * Idle flags wait exponentially longer, up to FlagDormancy.MAX_SLEEP_SECONDS.
      *
      * @param timeResource Current world time
      * @return Instant when next tick should occur
@@ -157,7 +175,8 @@ public class PickleFlagBlock implements Component<ChunkStore> {
     @NullableDecl
     public Instant getNextScheduledTick(WorldTimeResource timeResource) {
         Instant currentTime = timeResource.getGameTime();
-        return currentTime.plus(TICK_INTERVAL_SECONDS, ChronoUnit.SECONDS);
+        return currentTime.plus(
+            FlagDormancy.backoffSeconds(TICK_INTERVAL_SECONDS, this.idleTicks), ChronoUnit.SECONDS);
     }
 
     /**
@@ -168,6 +187,7 @@ public class PickleFlagBlock implements Component<ChunkStore> {
     public Component<ChunkStore> clone() {
         PickleFlagBlock clone = new PickleFlagBlock();
         clone.flagUniqueId = this.flagUniqueId;
+        clone.flagHandle = this.flagHandle;
         clone.flagName = this.flagName;
         clone.animationPhase = this.animationPhase;
         return clone;
@@ -6,10 +6,13 @@ package pickleflag;
 
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.command.system.AbstractCommand;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
 import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
 import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
 import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
 import com.hypixel.hytale.server.core.command.system.arguments.types.ArgumentType;
@@ -17,11 +20,14 @@ import com.hypixel.hytale.server.core.command.system.basecommands.AbstractComman
 import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.entity.entities.player.pages.CustomUIPage;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
@@ -30,13 +36,57 @@ import java.util.concurrent.Executor;
  *
  * Commands:
  * - /pickleflag manage <id> - Opens rename UI for the specified flag
- * - /pickleflag list - Lists all discovered flags (future)
+ * - /pickleflag stats - Shows flag counts and timings (see FlagMetrics)
+ * - /pickleflag list [page] - Lists the world's flags by name, a page at a time
+ * - /pickleflag near [count] - Lists the flags closest to the player
+ * - /pickleflag search <prefix> [page] - Lists flags whose names start with a prefix
+ * - /pickleflag tp <flag> - Teleports the player to a flag once its area is loaded
+ * - /pickleflag export <file> - Writes every world's flags to a dump (see FlagTransfer)
+ * - /pickleflag import <file> - Restores flags from a dump
+ *
+ * Listing commands work on the sender's world, or the world given with the
+ * optional world argument when run from the console. They read from the
+ * registry's name and spatial indexes, so each call costs one page of
+ * flags however many the world holds.
+ *
+ * Teleporting needs the pickleflag.command.tp permission, and export and
+ * import need pickleflag.command.transfer, since they read and write files
+ * on the server. The console holds every permission.
  */
 public class PickleFlagCommand extends AbstractCommandCollection {
 
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    // Permission to teleport to flags
+    static final String TP_PERMISSION = "pickleflag.command.tp";
+
+    // Permission to export and import flag dumps
+    static final String TRANSFER_PERMISSION = "pickleflag.command.transfer";
+
     public PickleFlagCommand() {
         super("pickleflag", "Commands to use and manage Pickle Pirate Flags");
         this.addSubCommand(new ManageCommand());
+        this.addSubCommand(new StatsCommand());
+        this.addSubCommand(new ListCommand());
+        this.addSubCommand(new NearCommand());
+        this.addSubCommand(new SearchCommand());
+        this.addSubCommand(new TpCommand());
+        this.addSubCommand(new ExportCommand());
+        this.addSubCommand(new ImportCommand());
+    }
+
+    /**
+     * Check that the sender holds a permission, telling them if not.
+     *
+     * @return true if the command may run
+     */
+    private static boolean checkPermission(CommandContext context, String permission) {
+        CommandSender sender = context.sender();
+        if (sender != null && !sender.hasPermission(permission)) {
+            context.sendMessage(Message.raw("You do not have permission to use this command."));
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -60,8 +110,11 @@ public class PickleFlagCommand extends AbstractCommandCollection {
         protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
             String id = this.idArg.get(context);
 
-            // Find the flag
-            FlagManager.FlagData flag = PickleFlagPlugin.get().getFlagManager().getFlag(id);
+            // Resolve the ID string to a handle, then find the flag in whichever world it was placed
+            FlagManager flagManager = PickleFlagPlugin.get().getFlagManager();
+            int handle = flagManager.getFlagIds().parse(id);
+            FlagRegistry registry = handle != FlagIds.NONE ? flagManager.findRegistry(handle) : null;
+            FlagManager.FlagData flag = registry != null ? registry.getFlag(handle) : null;
             if (flag == null) {
                 context.sendMessage(Message.raw("No flag with id " + id + " found."));
                 return CompletableFuture.completedFuture(null);
@@ -84,7 +137,7 @@ public class PickleFlagCommand extends AbstractCommandCollection {
                             player.getPageManager().openCustomPage(
                                 ref,
                                 store,
-                                (CustomUIPage) new FlagRenameUI(playerRefComponent, flag)
+                                (CustomUIPage) new FlagRenameUI(playerRefComponent, registry, flag)
                             );
                         }
                     }, (Executor) world);
@@ -94,4 +147,399 @@ public class PickleFlagCommand extends AbstractCommandCollection {
             return CompletableFuture.completedFuture(null);
         }
     }
+
+    /**
+     * Stats command - shows the mod's counters and timings since startup.
+     */
+    private static class StatsCommand extends AbstractCommand {
+
+        public StatsCommand() {
+            super("stats", "Show Pickle Flag counters and timings");
+        }
+
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            FlagManager flagManager = PickleFlagPlugin.get().getFlagManager();
+            for (String line : flagManager.getMetrics().summary(flagManager)) {
+                context.sendMessage(Message.raw(line));
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Base for commands that print flags of one world.
+     */
+    private abstract static class FlagListingCommand extends AbstractCommand {
+
+        // Flags shown per page
+        protected static final int PAGE_SIZE = 10;
+
+        @Nonnull
+        private final OptionalArg<String> worldArg = this.withOptionalArg(
+            "world",
+            "World to list flags of (defaults to your own)",
+            (ArgumentType) ArgTypes.STRING
+        );
+
+        protected FlagListingCommand(String name, String description) {
+            super(name, description);
+        }
+
+        /**
+         * Resolve the world to list: the world argument, else the sender's world.
+         *
+         * @return The world name, or null after telling the sender to pass one
+         */
+        protected String resolveWorld(CommandContext context) {
+            if (this.worldArg.provided(context)) {
+                return this.worldArg.get(context);
+            }
+            if (context.sender() instanceof Player player && player.getWorld() != null) {
+                return player.getWorld().getName();
+            }
+            context.sendMessage(Message.raw("Specify a world with the world argument."));
+            return null;
+        }
+
+        // Highest page whose offset fits in an int
+        private static final int MAX_PAGE = Integer.MAX_VALUE / PAGE_SIZE;
+
+        /**
+         * Read a 1-based page argument, defaulting to the first page.
+         * Pages past the last one are reported by sendPage().
+         */
+        protected static int pageOffset(CommandContext context, OptionalArg<Integer> pageArg) {
+            Integer page = pageArg.provided(context) ? pageArg.get(context) : null;
+            return page != null && page > 1 ? (Math.min(page, MAX_PAGE) - 1) * PAGE_SIZE : 0;
+        }
+
+        /**
+         * Send a page of flags with a header line.
+         */
+        protected static void sendPage(CommandContext context, String title, FlagManager.FlagPage page) {
+            if (page.total() == 0) {
+                context.sendMessage(Message.raw(title + ": no flags found."));
+                return;
+            }
+            int pages = (page.total() + PAGE_SIZE - 1) / PAGE_SIZE;
+            int pageNumber = page.offset() / PAGE_SIZE + 1;
+            if (pageNumber > pages) {
+                context.sendMessage(Message.raw(title + ": there " + (pages == 1 ? "is only 1 page" : "are only "
+                    + pages + " pages") + "."));
+                return;
+            }
+            context.sendMessage(Message.raw(title + " (page " + pageNumber + " of " + pages
+                + ", " + page.total() + " flags)"));
+            for (FlagManager.FlagData flag : page.flags()) {
+                context.sendMessage(Message.raw(describe(flag)));
+            }
+        }
+
+        /**
+         * One line describing a flag, with the ID /pickleflag manage accepts.
+         */
+        protected static String describe(FlagManager.FlagData flag) {
+            String id = PickleFlagPlugin.get().getFlagManager().getFlagIds().toString(flag.handle());
+            return flag.name() + " at " + flag.x() + ", " + flag.y() + ", " + flag.z() + " [" + id + "]";
+        }
+    }
+
+    /**
+     * List command - pages through a world's flags in name order.
+     */
+    private static class ListCommand extends FlagListingCommand {
+
+        @Nonnull
+        private final OptionalArg<Integer> pageArg = this.withOptionalArg(
+            "page",
+            "Page number, starting at 1",
+            (ArgumentType) ArgTypes.INTEGER
+        );
+
+        public ListCommand() {
+            super("list", "List flags by name, a page at a time");
+        }
+
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            String worldName = this.resolveWorld(context);
+            if (worldName != null) {
+                FlagManager.FlagPage page = PickleFlagPlugin.get().getFlagManager()
+                    .listFlags(worldName, pageOffset(context, this.pageArg), PAGE_SIZE);
+                sendPage(context, "Flags in " + worldName, page);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Search command - pages through the flags whose names start with a prefix.
+     */
+    private static class SearchCommand extends FlagListingCommand {
+
+        @Nonnull
+        private final RequiredArg<String> prefixArg = this.withRequiredArg(
+            "prefix",
+            "Start of the flag name (case-insensitive)",
+            (ArgumentType) ArgTypes.STRING
+        );
+
+        @Nonnull
+        private final OptionalArg<Integer> pageArg = this.withOptionalArg(
+            "page",
+            "Page number, starting at 1",
+            (ArgumentType) ArgTypes.INTEGER
+        );
+
+        public SearchCommand() {
+            super("search", "Find flags whose names start with a prefix");
+        }
+
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            String prefix = this.prefixArg.get(context);
+            String worldName = this.resolveWorld(context);
+            if (worldName != null) {
+                FlagManager.FlagPage page = PickleFlagPlugin.get().getFlagManager()
+                    .searchFlags(worldName, prefix, pageOffset(context, this.pageArg), PAGE_SIZE);
+                sendPage(context, "Flags in " + worldName + " starting with \"" + prefix + "\"", page);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Near command - lists the flags closest to the player.
+     */
+    private static class NearCommand extends AbstractCommand {
+
+        // Flags listed when no count is given, and the most that can be asked for
+        private static final int DEFAULT_COUNT = 5;
+        private static final int MAX_COUNT = 50;
+
+        @Nonnull
+        private final OptionalArg<Integer> countArg = this.withOptionalArg(
+            "count",
+            "Number of flags to list (at most " + MAX_COUNT + ")",
+            (ArgumentType) ArgTypes.INTEGER
+        );
+
+        public NearCommand() {
+            super("near", "List the flags closest to you");
+        }
+
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            Integer requested = this.countArg.provided(context) ? this.countArg.get(context) : null;
+            int count = requested != null ? Math.max(1, Math.min(requested, MAX_COUNT)) : DEFAULT_COUNT;
+
+            if (!(context.sender() instanceof Player player)) {
+                context.sendMessage(Message.raw("Only players can list nearby flags."));
+                return CompletableFuture.completedFuture(null);
+            }
+            Ref ref = player.getReference();
+            if (ref == null || !ref.isValid()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            Store store = ref.getStore();
+            World world = ((EntityStore) store.getExternalData()).getWorld();
+
+            // The player's position can only be read on the world thread
+            return CompletableFuture.runAsync(() -> {
+                TransformComponent transform = (TransformComponent) store.getComponent(
+                    ref, TransformComponent.getComponentType());
+                if (transform == null) {
+                    return;
+                }
+
+                int x = (int) Math.floor(transform.getPosition().getX());
+                int z = (int) Math.floor(transform.getPosition().getZ());
+                List<FlagManager.FlagData> flags = PickleFlagPlugin.get().getFlagManager()
+                    .nearestFlags(world.getName(), x, z, count);
+                if (flags.isEmpty()) {
+                    context.sendMessage(Message.raw("No flags in this world."));
+                    return;
+                }
+
+                context.sendMessage(Message.raw("Nearest flags:"));
+                for (FlagManager.FlagData flag : flags) {
+                    long distance = Math.round(Math.sqrt(FlagSpatialIndex.distanceSquared(flag, x, z)));
+                    context.sendMessage(Message.raw(distance + " blocks: "
+                        + FlagListingCommand.describe(flag)));
+                }
+            }, (Executor) world);
+        }
+    }
+
+    /**
+     * Teleport command - moves the player to a flag in their world.
+     *
+     * The destination chunks are loaded through the FlagTeleporter first, so
+     * the world thread never stalls on a chunk load; the player is moved on
+     * the world thread once they are resident.
+     */
+    private static class TpCommand extends AbstractCommand {
+
+        @Nonnull
+        private final RequiredArg<String> flagArg = this.withRequiredArg(
+            "flag",
+            "The flag ID or name to teleport to",
+            (ArgumentType) ArgTypes.STRING
+        );
+
+        public TpCommand() {
+            super("tp", "Teleport to a flag");
+        }
+
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            if (!checkPermission(context, TP_PERMISSION)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (!(context.sender() instanceof Player player)) {
+                context.sendMessage(Message.raw("Only players can teleport to flags."));
+                return CompletableFuture.completedFuture(null);
+            }
+            Ref ref = player.getReference();
+            if (ref == null || !ref.isValid()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            Store store = ref.getStore();
+            World world = ((EntityStore) store.getExternalData()).getWorld();
+
+            // Accept a flag ID from list/search output, or a flag name in the player's world
+            String target = this.flagArg.get(context);
+            FlagManager flagManager = PickleFlagPlugin.get().getFlagManager();
+            int handle = flagManager.getFlagIds().parse(target);
+            FlagManager.FlagData flag;
+            if (handle != FlagIds.NONE) {
+                FlagRegistry registry = flagManager.findRegistry(handle);
+                if (registry != null && !registry.getWorldName().equals(world.getName())) {
+                    context.sendMessage(Message.raw("That flag is in world " + registry.getWorldName() + "."));
+                    return CompletableFuture.completedFuture(null);
+                }
+                flag = registry != null ? registry.getFlag(handle) : null;
+            } else {
+                flag = flagManager.findFlagByName(world.getName(), target);
+            }
+            if (flag == null) {
+                context.sendMessage(Message.raw("No flag " + target + " found in this world."));
+                return CompletableFuture.completedFuture(null);
+            }
+
+            FlagRegistry registry = flagManager.getRegistry(world.getName());
+            int flagHandle = flag.handle();
+            return PickleFlagPlugin.get().getFlagTeleporter().prewarm(world, flag.x(), flag.z())
+                .thenRunAsync(() -> {
+                    // The player may have left, or the flag moved or broken, while chunks loaded
+                    FlagManager.FlagData current = registry.getFlag(flagHandle);
+                    if (!ref.isValid() || current == null) {
+                        context.sendMessage(Message.raw("Teleport cancelled."));
+                        return;
+                    }
+                    TransformComponent transform = (TransformComponent) store.getComponent(
+                        ref, TransformComponent.getComponentType());
+                    if (transform != null) {
+                        transform.teleportPosition(
+                            new Vector3d(current.x() + 0.5, current.y() + 1, current.z() + 0.5));
+                        context.sendMessage(Message.raw("Teleported to " + current.name() + "."));
+                    }
+                }, (Executor) world)
+                .exceptionally(error -> {
+                    LOGGER.atWarning().withCause(error).log("Could not load chunks around flag %s",
+                        flagManager.getFlagIds().toString(flagHandle));
+                    context.sendMessage(Message.raw("Could not load the area around that flag."));
+                    return null;
+                });
+        }
+    }
+
+    /**
+     * Base for commands that move a dump file through FlagTransfer in the background.
+     */
+    private abstract static class TransferCommand extends AbstractCommand {
+
+        @Nonnull
+        private final RequiredArg<String> fileArg = this.withRequiredArg(
+            "file",
+            "Dump file in the exports directory, ending in .ndjson or .bin",
+            (ArgumentType) ArgTypes.STRING
+        );
+
+        protected TransferCommand(String name, String description) {
+            super(name, description);
+        }
+
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            if (!checkPermission(context, TRANSFER_PERMISSION)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            FlagTransfer transfer = PickleFlagPlugin.get().getFlagTransfer();
+            String fileName = this.fileArg.get(context);
+            Path path;
+            try {
+                path = transfer.resolve(fileName.contains(".") ? fileName : fileName + ".ndjson");
+            } catch (IllegalArgumentException e) {
+                context.sendMessage(Message.raw(e.getMessage()));
+                return CompletableFuture.completedFuture(null);
+            }
+
+            long started = System.nanoTime();
+            return this.transfer(transfer, path)
+                .thenAccept(count -> context.sendMessage(Message.raw(String.format("%s %d flags (%s) in %d ms.",
+                    this.verb(), count, path.getFileName(), (System.nanoTime() - started) / 1_000_000L))))
+                .exceptionally(error -> {
+                    LOGGER.atWarning().withCause(error).log("Flag transfer with %s failed", path);
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    context.sendMessage(Message.raw("Could not transfer flags: " + cause.getMessage()));
+                    return null;
+                });
+        }
+
+        protected abstract CompletableFuture<Integer> transfer(FlagTransfer transfer, Path path);
+
+        protected abstract String verb();
+    }
+
+    /**
+     * Export command - writes every world's flags to a dump file.
+     */
+    private static class ExportCommand extends TransferCommand {
+
+        public ExportCommand() {
+            super("export", "Export all flags to a file");
+        }
+
+        @Override
+        protected CompletableFuture<Integer> transfer(FlagTransfer transfer, Path path) {
+            return transfer.export(path);
+        }
+
+        @Override
+        protected String verb() {
+            return "Exported";
+        }
+    }
+
+    /**
+     * Import command - adds or updates flags from a dump file.
+     */
+    private static class ImportCommand extends TransferCommand {
+
+        public ImportCommand() {
+            super("import", "Import flags from a file");
+        }
+
+        @Override
+        protected CompletableFuture<Integer> transfer(FlagTransfer transfer, Path path) {
+            return transfer.importFrom(path);
+        }
+
+        @Override
+        protected String verb() {
+            return "Imported";
+        }
+    }
 }
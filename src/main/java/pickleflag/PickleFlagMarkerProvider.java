@@ -4,33 +4,95 @@
  */
 package pickleflag;
 
-import com.hypixel.hytale.math.vector.Transform;
-import com.hypixel.hytale.math.vector.Vector3d;
-import com.hypixel.hytale.protocol.packets.worldmap.ContextMenuItem;
-import com.hypixel.hytale.protocol.packets.worldmap.MapMarker;
 import com.hypixel.hytale.server.core.asset.type.gameplay.GameplayConfig;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.WorldMapTracker;
 import com.hypixel.hytale.server.core.universe.world.worldmap.WorldMapManager;
-import com.hypixel.hytale.server.core.util.PositionUtil;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
- * Provides map markers for all placed Pickle Pirate Flags.
+ * Provides map markers for the Pickle Pirate Flags placed in one world.
  *
  * This class implements the WorldMapManager.MarkerProvider interface,
  * which is called by the game to get markers to display on the world map.
+ * One provider is registered per world and only reads that world's registry.
  *
- * Markers show:
- * - Discovered flags with full name and pickle_flag_marker.png icon
- * - Undiscovered flags with "Unknown Flag" and grayed-out icon
+ * Markers are prebuilt once per flag in a FlagMarkerCache and shared by all
+ * players, so a per-player update does not allocate per flag. The cache is
+ * invalidated by flag change events rather than rebuilt per update.
+ *
+ * Each WorldMapTracker also keeps the list of markers it was last offered,
+ * along with the registry version and player chunk it was computed for. The
+ * range query only runs again when one of those changes; otherwise the list
+ * is replayed as-is. The tracker drops any marker that is not offered during
+ * an update, so removed flags disappear as soon as they leave the list, and
+ * unchanged markers are not resent.
+ *
+ * In dense areas flags are clustered: the FlagRegistry keeps a FlagClusterTree
+ * of flag counts per map cell, and every cell at the view's level holding at
+ * least CLUSTER_MIN_FLAGS flags is offered as one marker showing the count
+ * instead of one marker per flag. The server is not told the client's map
+ * zoom, so the level follows the tracker's view radius, which grows as the
+ * map zooms out. Set the system property pickleflag.clusterMinFlags to 0 to
+ * turn clustering off.
+ *
+ * New markers are sent under a per-update budget. The visible list is kept
+ * sorted nearest-first, and each update offers at most MARKER_BUDGET markers
+ * the tracker has not been sent yet, resuming after the last one sent; the
+ * rest follow over the next updates. Markers already sent are re-offered
+ * every update (the tracker does not resend them), so nothing disappears
+ * while the backlog streams in. Opening the map or teleporting into a crowded
+ * area therefore costs a bounded number of marker packets per update. Set the
+ * system property pickleflag.markerBudget to 0 to send everything at once.
+ *
+ * Every flag is shown with its name and the pickle_flag_marker.png icon,
+ * whether or not the player has discovered it.
  */
 public class PickleFlagMarkerProvider implements WorldMapManager.MarkerProvider {
 
-    // Map marker icon (matches Phase 1 asset)
-    private static final String DISCOVERED_ICON = "Pickle_Flag.png";
+    // System property: flags a map cell needs before it is shown as a cluster (0 = never cluster)
+    private static final String CLUSTER_MIN_FLAGS_PROPERTY = "pickleflag.clusterMinFlags";
+
+    // Flags a map cell needs before its markers collapse into one cluster marker
+    static final int CLUSTER_MIN_FLAGS = Integer.getInteger(CLUSTER_MIN_FLAGS_PROPERTY, 8);
+
+    // System property: new markers sent per update and player (0 = unlimited)
+    private static final String MARKER_BUDGET_PROPERTY = "pickleflag.markerBudget";
+
+    // New markers offered to one tracker per update
+    static final int MARKER_BUDGET = Integer.getInteger(MARKER_BUDGET_PROPERTY, 64);
+
+    // Registry for the world this provider is registered on
+    private final FlagRegistry registry;
+
+    // Prebuilt markers, invalidated by flag change events
+    private final FlagMarkerCache markerCache;
+
+    // Receives update timings and marker counts
+    private final FlagMetrics metrics;
+
+    // Per-player marker state, released when the tracker is discarded
+    private final Map<WorldMapTracker, TrackerState> trackerStates =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Create a marker provider bound to a single world's registry.
+     *
+     * @param registry The flag registry of the provider's world
+     * @param metrics  Metrics to record update timings in
+     */
+    public PickleFlagMarkerProvider(FlagRegistry registry, FlagMetrics metrics) {
+        this.registry = registry;
+        this.metrics = metrics;
+        this.markerCache = new FlagMarkerCache(registry.getFlagIds());
+    }
 
     /**
      * Called by the game to update map markers for a player.
@@ -48,55 +110,160 @@ public class PickleFlagMarkerProvider implements WorldMapManager.MarkerProvider
                        int chunkViewRadiusSquared,
                        int playerChunkX, int playerChunkZ) {
 
-        // Iterate through all placed flags
-        for (FlagManager.FlagData flag : PickleFlagPlugin.get().getFlagManager().getAllFlags()) {
+        long start = System.nanoTime();
+        FlagSnapshot snapshot = this.registry.snapshot();
+        TrackerState state = this.trackerStates.computeIfAbsent(worldMapTracker, tracker -> new TrackerState());
 
-            // TODO: Discovery system disabled until proximity detection is implemented
-            // All flags shown as discovered for now
-            String markerId = "PickleFlag-" + flag.id();
-            String displayName = flag.name();
+        // Recompute the visible markers only if the registry or the player's view changed
+        if (!state.isCurrent(snapshot.version(), playerChunkX, playerChunkZ, chunkViewRadiusSquared)) {
+            state.reset(snapshot.version(), playerChunkX, playerChunkZ, chunkViewRadiusSquared);
 
-            // Send marker to map
+            // Only visit flags in chunks the tracker could accept
+            FlagClusterTree clusterTree = this.registry.getClusterTree();
+            int level = FlagClusterTree.levelFor(chunkViewRadiusSquared);
+            snapshot.forEachFlagInChunkRadius(playerChunkX, playerChunkZ, chunkViewRadiusSquared, flag -> {
+                FlagClusterTree.Cell cell = CLUSTER_MIN_FLAGS > 0 ? clusterTree.cellOf(level, flag) : null;
+                if (cell == null || cell.count() < CLUSTER_MIN_FLAGS) {
+                    state.add(this.markerCache.get(flag));
+                } else if (state.clusters.add(cell.key())) {
+                    state.add(this.markerCache.getCluster(cell));
+                }
+            });
+            state.sortNearestFirst(playerChunkX, playerChunkZ);
+        }
+
+        int budget = MARKER_BUDGET > 0 ? MARKER_BUDGET : Integer.MAX_VALUE;
+        int offered = 0;
+        for (int i = 0; i < state.visibleCount; i++) {
+            FlagMarkerCache.Entry entry = state.visible[i];
+
+            // Markers before pendingFrom were all sent; past it, new ones draw on the budget
+            if (i >= state.pendingFrom && !state.delivered.contains(entry.markerId())) {
+                if (budget == 0) {
+                    continue;
+                }
+                budget--;
+                state.delivered.add(entry.markerId());
+            }
+            offered++;
+
+            // Send prebuilt marker to map
             worldMapTracker.trySendMarker(
                 chunkViewRadiusSquared,
                 playerChunkX,
                 playerChunkZ,
-                new Vector3d(flag.x(), flag.y(), flag.z()),
+                entry.position(),
                 0.0f,  // No rotation
-                markerId,
-                displayName,
-                flag,
-                (id, name, flagData) -> new MapMarker(
-                    id,
-                    name,
-                    DISCOVERED_ICON,
-                    PositionUtil.toTransformPacket(new Transform(
-                        flagData.x(), flagData.y(), flagData.z())),
-                    createContextMenuItems(flagData, worldMapTracker)
-                )
+                entry.markerId(),
+                entry.name(),
+                entry,
+                (id, name, cached) -> cached.marker()
             );
         }
+        state.advancePending();
+
+        this.metrics.recordMarkerUpdate(System.nanoTime() - start, offered);
     }
 
     /**
-     * Create context menu items for a flag marker (right-click menu).
+     * Get the prebuilt marker cache of this provider's world.
+     */
+    FlagMarkerCache getMarkerCache() {
+        return this.markerCache;
+    }
+
+    /**
+     * React to a change in any world's registry.
+     * Subscribed through FlagManager.subscribe when the provider is registered.
      *
-     * @param flag            The flag data
-     * @param worldMapTracker The player's map tracker
-     * @return Array of context menu items, or null if none
+     * @param event The change
      */
-    private ContextMenuItem[] createContextMenuItems(FlagManager.FlagData flag,
-                                                      WorldMapTracker worldMapTracker) {
+    public void onFlagEvent(FlagEvent event) {
+        if (event.worldName().equals(this.registry.getWorldName())) {
+            this.markerCache.onFlagEvent(event);
+        }
+    }
+
+    /**
+     * Markers last computed for one player's map, with the inputs they were computed from.
+     */
+    private static final class TrackerState {
+
+        // Registry version the visible list was computed for (-1 = never)
+        private long version = -1L;
+
+        // Player chunk and view radius the visible list was computed for
+        private int chunkX;
+        private int chunkZ;
+        private int radiusSquared;
 
-        List<ContextMenuItem> items = new ArrayList<>();
+        // Markers in range, reused between recomputations
+        private FlagMarkerCache.Entry[] visible = new FlagMarkerCache.Entry[16];
+        private int visibleCount;
 
-        // Add rename option - opens the rename UI via command
-        items.add(new ContextMenuItem("Rename", "pickleflag manage " + flag.id()));
+        // Cells already offered as cluster markers in the visible list
+        private final Set<Long> clusters = new HashSet<>();
 
-        if (items.isEmpty()) {
-            return null;
+        // IDs of the visible markers the tracker has been offered
+        private Set<String> delivered = new HashSet<>();
+
+        // Every marker before this index in the visible list has been offered
+        private int pendingFrom;
+
+        boolean isCurrent(long version, int chunkX, int chunkZ, int radiusSquared) {
+            return this.version == version && this.chunkX == chunkX
+                && this.chunkZ == chunkZ && this.radiusSquared == radiusSquared;
+        }
+
+        void reset(long version, int chunkX, int chunkZ, int radiusSquared) {
+            Arrays.fill(this.visible, 0, this.visibleCount, null);
+            this.visibleCount = 0;
+            this.clusters.clear();
+            this.pendingFrom = 0;
+            this.version = version;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.radiusSquared = radiusSquared;
+        }
+
+        /**
+         * Order the visible list by distance from the player's chunk and
+         * forget delivered markers that left it (the tracker drops them).
+         */
+        void sortNearestFirst(int chunkX, int chunkZ) {
+            double centerX = (chunkX << 5) + 16.0;
+            double centerZ = (chunkZ << 5) + 16.0;
+            Arrays.sort(this.visible, 0, this.visibleCount, Comparator.comparingDouble(entry -> {
+                double dx = entry.position().getX() - centerX;
+                double dz = entry.position().getZ() - centerZ;
+                return dx * dx + dz * dz;
+            }));
+
+            Set<String> stillVisible = new HashSet<>();
+            for (int i = 0; i < this.visibleCount; i++) {
+                String markerId = this.visible[i].markerId();
+                if (this.delivered.contains(markerId)) {
+                    stillVisible.add(markerId);
+                }
+            }
+            this.delivered = stillVisible;
         }
 
-        return items.toArray(new ContextMenuItem[0]);
+        /**
+         * Move pendingFrom past the markers offered so far.
+         */
+        void advancePending() {
+            while (this.pendingFrom < this.visibleCount
+                && this.delivered.contains(this.visible[this.pendingFrom].markerId())) {
+                this.pendingFrom++;
+            }
+        }
+
+        void add(FlagMarkerCache.Entry entry) {
+            if (this.visibleCount == this.visible.length) {
+                this.visible = Arrays.copyOf(this.visible, this.visibleCount * 2);
+            }
+            this.visible[this.visibleCount++] = entry;
+        }
     }
 }
@@ -21,21 +21,32 @@ import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.math.util.ChunkUtil;
 import com.hypixel.hytale.server.core.asset.type.blocktick.BlockTickStrategy;
 import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.server.core.modules.block.BlockModule;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.modules.time.WorldTimeResource;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.chunk.BlockChunk;
-import com.hypixel.hytale.server.core.universe.world.chunk.BlockComponentChunk;
 import com.hypixel.hytale.server.core.universe.world.chunk.ChunkColumn;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
 import com.hypixel.hytale.server.core.universe.world.chunk.section.BlockSection;
 import com.hypixel.hytale.server.core.universe.world.chunk.section.ChunkSection;
 import com.hypixel.hytale.server.core.universe.world.events.AddWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
 import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 // import com.hypixel.hytale.server.core.modules.block.interaction.BlockInteractionRegistry; // API doesn't exist
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
 import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 
@@ -51,7 +62,10 @@ import org.checkerframework.checker.nullness.compatqual.NullableDecl;
  * - PickleFlagBlock: Component attached to placed flag blocks
  * - PlayerFlagData: Component tracking which flags a player has discovered
  * - FlagManager: Central manager for all placed flags (POI data)
- * - PickleFlagMarkerProvider: Provides map markers for placed flags
+ * - FlagRegistry: Per-world partition of the FlagManager
+ * - FlagStore: Journal and snapshot that keep registries across restarts
+ * - PickleFlagMarkerProvider: Provides map markers for one world's flags
+ * - FlagMetrics: Counters and timings shown by /pickleflag stats
  */
 public class PickleFlagPlugin extends JavaPlugin {
 
@@ -61,9 +75,42 @@ public class PickleFlagPlugin extends JavaPlugin {
     // Logger for debug output
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
+    // File in the plugin data directory holding the flag ordinal table
+    private static final String FLAG_IDS_FILE = "flag_ids.bin";
+
+    // System property: threads evaluating discovery off the world thread (0 = on the world thread)
+    private static final String DISCOVERY_THREADS_PROPERTY = "pickleflag.discoveryThreads";
+
+    // Directory in the plugin data directory for /pickleflag export and import dumps
+    private static final String EXPORTS_DIRECTORY = "exports";
+
+    // System property: minutes between metrics summaries in the log (0 or unset = off)
+    private static final String STATS_LOG_MINUTES_PROPERTY = "pickleflag.statsLogMinutes";
+
     // Manager for tracking all placed flags
     private FlagManager flagManager;
 
+    // Saves the flag registries across restarts
+    private FlagStore flagStore;
+
+    // Exports and imports flag dumps for the export/import commands
+    private FlagTransfer flagTransfer;
+
+    // Evaluates discovery on a fork-join pool (null when it runs on the world thread)
+    private FlagDiscoveryScheduler discoveryScheduler;
+
+    // Loads teleport destinations ahead of the teleport
+    private final FlagTeleporter flagTeleporter = new FlagTeleporter();
+
+    // Map of world name -> flag changes collected during the current tick
+    private final Map<String, FlagBatch> tickBatches = new ConcurrentHashMap<>();
+
+    // Removes each world's flag event listeners when the world is removed
+    private final Map<String, Runnable> worldUnsubscribes = new ConcurrentHashMap<>();
+
+    // Writes the periodic metrics summary (null when disabled)
+    private ScheduledExecutorService statsLogger;
+
     // Component type for flag blocks (attached to ChunkStore)
     private ComponentType<ChunkStore, PickleFlagBlock> flagBlockComponent;
 
@@ -94,6 +141,23 @@ public class PickleFlagPlugin extends JavaPlugin {
         instance = this;
         LOGGER.atInfo().log("Setting up Pickle Pirate Flag plugin...");
 
+        // Load the flag ordinal table so saved discovery bitsets keep their meaning
+        try {
+            this.flagManager.getFlagIds().load(this.getDataDirectory().resolve(FLAG_IDS_FILE));
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Could not load flag ordinal table; discoveries will be saved as UUIDs");
+        }
+
+        // Restore every known flag so the whole map is available before any chunk loads
+        this.flagStore = new FlagStore(this.getDataDirectory(), this.flagManager);
+        try {
+            int restored = this.flagStore.load();
+            LOGGER.atInfo().log("Restored %s Pickle Flags from disk", restored);
+        } catch (IOException e) {
+            LOGGER.atSevere().withCause(e).log("Could not load saved flags; flags will appear as their chunks load");
+        }
+        this.flagTransfer = new FlagTransfer(this.getDataDirectory().resolve(EXPORTS_DIRECTORY), this.flagManager);
+
         // Register player data component (tracks discovered flags per player)
         this.playerFlagDataComponent = this.getEntityStoreRegistry()
             .registerComponent(PlayerFlagData.class, "PlayerFlagData", PlayerFlagData.CODEC);
@@ -105,24 +169,116 @@ public class PickleFlagPlugin extends JavaPlugin {
         // Register system to handle flag placement/removal
         this.getChunkStoreRegistry().registerSystem((ISystem) new OnFlagPlaced());
 
+        // Register system to drop registry entries whose blocks vanished while unloaded
+        this.getChunkStoreRegistry().registerSystem((ISystem) new FlagChunkReconciler());
+
         // Register ticking system for flag animation and discovery checks
         this.getChunkStoreRegistry().registerSystem((ISystem) new FlagTicking());
 
         // Register system to initialize player data when they join
         this.getEntityStoreRegistry().registerSystem((ISystem) new PlayerJoinedSystem());
 
-        // Register map marker provider when worlds are added
+        // Register system for player-driven flag discovery, evaluated off the world thread unless disabled
+        int discoveryThreads = Integer.getInteger(DISCOVERY_THREADS_PROPERTY,
+            Runtime.getRuntime().availableProcessors());
+        if (discoveryThreads > 0) {
+            this.discoveryScheduler = new FlagDiscoveryScheduler(discoveryThreads, this.flagManager.getMetrics(),
+                this::announceDiscovery);
+        }
+        this.getEntityStoreRegistry().registerSystem((ISystem) new FlagDiscoverySystem());
+
+        // Register map marker provider when worlds are added, bound to that world's registry
         this.getEventRegistry().registerGlobal(AddWorldEvent.class, event -> {
-            event.getWorld().getWorldMapManager().getMarkerProviders()
-                .put("pickle_flag_plugin", new PickleFlagMarkerProvider());
+            World world = event.getWorld();
+            PickleFlagMarkerProvider markerProvider = new PickleFlagMarkerProvider(
+                this.flagManager.getRegistry(world.getName()), this.flagManager.getMetrics());
+            Runnable unsubscribeMarkers = this.flagManager.subscribe(markerProvider::onFlagEvent);
+            world.getWorldMapManager().getMarkerProviders().put("pickle_flag_plugin", markerProvider);
+
+            // Push renames into the loaded flag block so they are saved with the chunk
+            Runnable unsubscribeRenames = this.flagManager.subscribe(flagEvent -> {
+                if (flagEvent instanceof FlagEvent.Renamed renamed
+                    && renamed.worldName().equals(world.getName())) {
+                    world.execute(() -> {
+                        PickleFlagBlock flagBlock = FlagBlocks.getFlagBlock(world, renamed.flag());
+                        if (flagBlock != null) {
+                            flagBlock.setFlagName(renamed.flag().name());
+                        }
+                    });
+                }
+            });
+
+            Runnable previous = this.worldUnsubscribes.put(world.getName(), () -> {
+                unsubscribeMarkers.run();
+                unsubscribeRenames.run();
+            });
+            if (previous != null) {
+                previous.run();
+            }
+        });
+
+        // Stop delivering flag events to a removed world; its registry stays for the store
+        this.getEventRegistry().registerGlobal(RemoveWorldEvent.class, event -> {
+            Runnable unsubscribe = this.worldUnsubscribes.remove(event.getWorld().getName());
+            if (unsubscribe != null) {
+                unsubscribe.run();
+            }
         });
 
         // Register commands for flag management
         this.getCommandRegistry().registerCommand(new PickleFlagCommand());
 
+        // Optionally log a metrics summary at a fixed interval
+        long statsLogMinutes = Long.getLong(STATS_LOG_MINUTES_PROPERTY, 0L);
+        if (statsLogMinutes > 0) {
+            this.statsLogger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "PickleFlag-Stats");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.statsLogger.scheduleAtFixedRate(
+                () -> LOGGER.atInfo().log("Pickle Flag stats: %s",
+                    this.flagManager.getMetrics().summaryLine(this.flagManager)),
+                statsLogMinutes, statsLogMinutes, TimeUnit.MINUTES);
+        }
+
         LOGGER.atInfo().log("Pickle Pirate Flag plugin setup complete!");
     }
 
+    /**
+     * Shutdown method called when the server stops or the plugin unloads.
+     */
+    @Override
+    protected void shutdown() {
+        if (this.statsLogger != null) {
+            this.statsLogger.shutdownNow();
+        }
+        if (this.flagTransfer != null) {
+            this.flagTransfer.shutdown();
+        }
+        if (this.discoveryScheduler != null) {
+            this.discoveryScheduler.shutdown();
+        }
+
+        // Apply changes from a last tick whose commit task will not run any more
+        for (String worldName : this.tickBatches.keySet()) {
+            FlagBatch batch = this.tickBatches.remove(worldName);
+            if (batch != null) {
+                batch.commit();
+            }
+        }
+        try {
+            this.flagStore.close();
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Failed to save flags on shutdown");
+        }
+        try {
+            this.flagManager.getFlagIds().close();
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Failed to close flag ordinal table");
+        }
+    }
+
     // ==================== Getters ====================
 
     public ComponentType<ChunkStore, PickleFlagBlock> getFlagBlockComponent() {
@@ -137,6 +293,62 @@ public class PickleFlagPlugin extends JavaPlugin {
         return this.flagManager;
     }
 
+    public FlagTeleporter getFlagTeleporter() {
+        return this.flagTeleporter;
+    }
+
+    public FlagTransfer getFlagTransfer() {
+        return this.flagTransfer;
+    }
+
+    /**
+     * Get the scheduler that evaluates discovery off the world thread.
+     *
+     * @return The scheduler, or null when discovery runs on the world thread
+     */
+    public FlagDiscoveryScheduler getDiscoveryScheduler() {
+        return this.discoveryScheduler;
+    }
+
+    /**
+     * Queue the announcement of a flag a player just discovered; FlagDiscoverySystem
+     * sends it, coalesced with other discoveries. Called on the world thread.
+     */
+    void announceDiscovery(PlayerFlagData playerData, FlagManager.FlagData flag) {
+        this.flagManager.getMetrics().recordDiscovery();
+        playerData.getDiscoveryNotices().add(flag, System.nanoTime());
+    }
+
+    /**
+     * Get the batch collecting a world's flag changes for the current tick.
+     *
+     * The first call in a tick opens the batch and queues its commit on the
+     * world thread, so everything placed, loaded or broken during the tick
+     * reaches the registry as one version. Call from the world thread.
+     *
+     * @param world The world whose registry will be changed
+     * @return The world's open batch
+     */
+    public FlagBatch getTickBatch(World world) {
+        String worldName = world.getName();
+        FlagBatch open = this.tickBatches.get(worldName);
+        if (open != null) {
+            return open;
+        }
+
+        // Only the call that opened the batch queues its commit, outside any map operation
+        FlagBatch batch = this.flagManager.batch(worldName);
+        open = this.tickBatches.putIfAbsent(worldName, batch);
+        if (open != null) {
+            return open;
+        }
+        world.execute(() -> {
+            this.tickBatches.remove(worldName, batch);
+            batch.commit();
+        });
+        return batch;
+    }
+
     public static PickleFlagPlugin get() {
         return instance;
     }
@@ -164,9 +376,11 @@ public class PickleFlagPlugin extends JavaPlugin {
                 PickleFlagPlugin.get().getFlagBlockComponent());
 
             if (flagBlock != null) {
+                World world = ((ChunkStore) commandBuffer.getExternalData()).getWorld();
+
                 // Get world time for scheduling ticks
-                WorldTimeResource timeResource = ((ChunkStore) commandBuffer.getExternalData())
-                    .getWorld().getEntityStore().getStore().getResource(WorldTimeResource.getResourceType());
+                WorldTimeResource timeResource = world.getEntityStore().getStore()
+                    .getResource(WorldTimeResource.getResourceType());
 
                 // Get block position info
                 BlockModule.BlockStateInfo blockInfo = commandBuffer.getComponent(ref,
@@ -177,15 +391,6 @@ public class PickleFlagPlugin extends JavaPlugin {
                 int localY = ChunkUtil.yFromBlockInColumn(blockInfo.getIndex());
                 int localZ = ChunkUtil.zFromBlockInColumn(blockInfo.getIndex());
 
-                // Schedule the flag for ticking (animation updates)
-                BlockChunk blockChunk = commandBuffer.getComponent(blockInfo.getChunkRef(),
-                    BlockChunk.getComponentType());
-                BlockSection blockSection = blockChunk.getSectionAtBlockY(localY);
-                blockSection.scheduleTick(
-                    ChunkUtil.indexBlock(localX, localY, localZ),
-                    flagBlock.getNextScheduledTick(timeResource)
-                );
-
                 // Calculate world coordinates
                 ChunkColumn chunkColumn = commandBuffer.getComponent(blockInfo.getChunkRef(),
                     ChunkColumn.getComponentType());
@@ -201,15 +406,34 @@ public class PickleFlagPlugin extends JavaPlugin {
                 int worldY = ChunkUtil.worldCoordFromLocalCoord(chunkSection.getY(), localY);
                 int worldZ = ChunkUtil.worldCoordFromLocalCoord(chunkSection.getZ(), localZ);
 
-                // Register the flag with the manager
-                PickleFlagPlugin.get().getFlagManager().addFlag(
-                    flagBlock.getFlagUniqueId(),
-                    flagBlock.getFlagName(),
-                    worldX, worldY, worldZ
-                );
+                FlagRegistry registry = PickleFlagPlugin.get().getFlagManager().getRegistry(world.getName());
 
-                LOGGER.atInfo().log("Pickle flag planted at " + worldX + ", " + worldY + ", " + worldZ +
-                    " ID: " + flagBlock.getFlagUniqueId());
+                // Schedule the flag for ticking (animation updates)
+                int slot = ChunkUtil.indexBlock(localX, localY, localZ);
+                Instant nextTick = flagBlock.getNextScheduledTick(timeResource);
+                BlockChunk blockChunk = commandBuffer.getComponent(blockInfo.getChunkRef(),
+                    BlockChunk.getComponentType());
+                blockChunk.getSectionAtBlockY(localY).scheduleTick(slot, nextTick);
+
+                // Let FlagTicking find the flag without scanning the section
+                registry.getSectionIndex().add(chunkSection.getX(), chunkSection.getY(), chunkSection.getZ(),
+                    slot, ref, nextTick);
+
+                // Register the flag when this tick's batch commits (keeps a newer registry name)
+                String registeredName = PickleFlagPlugin.get().getTickBatch(world).add(
+                        flagBlock.getFlagHandle(),
+                        flagBlock.getFlagName(),
+                        worldX, worldY, worldZ
+                    );
+                flagBlock.setFlagName(registeredName);
+
+                if (reason == AddReason.SPAWN) {
+                    PickleFlagPlugin.get().getFlagManager().getMetrics().recordPlaced();
+                } else {
+                    PickleFlagPlugin.get().getFlagManager().getMetrics().recordLoaded();
+                }
+                LOGGER.atFine().log("Pickle flag planted at %s, %s, %s ID: %s",
+                    worldX, worldY, worldZ, flagBlock.getFlagUniqueId());
             }
         }
 
@@ -219,16 +443,11 @@ public class PickleFlagPlugin extends JavaPlugin {
                                    @NonNullDecl Store<ChunkStore> store,
                                    @NonNullDecl CommandBuffer<ChunkStore> commandBuffer) {
 
-            // Don't process chunk unloads as removals
-            if (reason == RemoveReason.UNLOAD) {
-                return;
-            }
-
             PickleFlagBlock flagBlock = commandBuffer.getComponent(ref,
                 PickleFlagPlugin.get().getFlagBlockComponent());
 
             if (flagBlock != null) {
-                // Get block position for logging
+                // Get block position
                 BlockModule.BlockStateInfo blockInfo = commandBuffer.getComponent(ref,
                     BlockModule.BlockStateInfo.getComponentType());
                 assert blockInfo != null;
@@ -251,18 +470,24 @@ public class PickleFlagPlugin extends JavaPlugin {
                 int worldY = ChunkUtil.worldCoordFromLocalCoord(chunkSection.getY(), localY);
                 int worldZ = ChunkUtil.worldCoordFromLocalCoord(chunkSection.getZ(), localZ);
 
-                // Update name from manager (may have been renamed)
-                FlagManager.FlagData flagData = PickleFlagPlugin.get().getFlagManager()
-                    .getFlag(flagBlock.getFlagUniqueId());
-                if (flagData != null) {
-                    flagBlock.setFlagName(flagData.name());
+                World world = ((ChunkStore) commandBuffer.getExternalData()).getWorld();
+                FlagRegistry registry = PickleFlagPlugin.get().getFlagManager().getRegistry(world.getName());
+
+                // The block is gone from the loaded world either way
+                registry.getSectionIndex().remove(chunkSection.getX(), chunkSection.getY(), chunkSection.getZ(),
+                    ChunkUtil.indexBlock(localX, localY, localZ));
+
+                // Don't process chunk unloads as removals
+                if (reason == RemoveReason.UNLOAD) {
+                    return;
                 }
 
-                // Remove from manager
-                PickleFlagPlugin.get().getFlagManager().removeFlag(flagBlock.getFlagUniqueId());
+                // Remove from registry at the end of the tick
+                PickleFlagPlugin.get().getTickBatch(world).remove(flagBlock.getFlagHandle());
 
-                LOGGER.atInfo().log("Pickle flag removed at " + worldX + ", " + worldY + ", " + worldZ +
-                    " ID: " + flagBlock.getFlagUniqueId());
+                PickleFlagPlugin.get().getFlagManager().getMetrics().recordRemoved();
+                LOGGER.atFine().log("Pickle flag removed at %s, %s, %s ID: %s",
+                    worldX, worldY, worldZ, flagBlock.getFlagUniqueId());
             }
         }
 
@@ -273,9 +498,50 @@ public class PickleFlagPlugin extends JavaPlugin {
         }
     }
 
+    /**
+     * System that reconciles the registry with a chunk's flag blocks whenever the chunk loads.
+     * See FlagReconciliation.
+     */
+    public static class FlagChunkReconciler extends RefSystem<ChunkStore> {
+
+        @Override
+        public void onEntityAdded(@NonNullDecl Ref<ChunkStore> ref,
+                                  @NonNullDecl AddReason reason,
+                                  @NonNullDecl Store<ChunkStore> store,
+                                  @NonNullDecl CommandBuffer<ChunkStore> commandBuffer) {
+
+            // Newly generated chunks cannot hold stale flags
+            if (reason != AddReason.LOAD) {
+                return;
+            }
+
+            WorldChunk worldChunk = commandBuffer.getComponent(ref, WorldChunk.getComponentType());
+            assert worldChunk != null;
+
+            World world = ((ChunkStore) commandBuffer.getExternalData()).getWorld();
+            FlagReconciliation.chunkLoaded(world,
+                PickleFlagPlugin.get().getFlagManager().getRegistry(world.getName()),
+                worldChunk.getX(), worldChunk.getZ());
+        }
+
+        @Override
+        public void onEntityRemove(@NonNullDecl Ref<ChunkStore> ref,
+                                   @NonNullDecl RemoveReason reason,
+                                   @NonNullDecl Store<ChunkStore> store,
+                                   @NonNullDecl CommandBuffer<ChunkStore> commandBuffer) {
+        }
+
+        @NullableDecl
+        @Override
+        public Query<ChunkStore> getQuery() {
+            return WorldChunk.getComponentType();
+        }
+    }
+
     /**
      * System that handles per-tick updates for flags.
-     * Updates animation phase and checks for player discovery.
+     * Updates animation phase and backs off ticks for flags with no player near.
+     * Only visits sections the world's FlagSectionIndex lists with a due flag.
      */
     public static class FlagTicking extends EntityTickingSystem<ChunkStore> {
 
@@ -298,21 +564,33 @@ public class PickleFlagPlugin extends JavaPlugin {
             ChunkSection chunkSection = archetypeChunk.getComponent(index, ChunkSection.getComponentType());
             assert chunkSection != null;
 
-            BlockComponentChunk blockComponentChunk = commandBuffer.getComponent(
-                chunkSection.getChunkColumnReference(), BlockComponentChunk.getComponentType());
-            assert blockComponentChunk != null;
+            World world = ((ChunkStore) commandBuffer.getExternalData()).getWorld();
 
-            WorldTimeResource timeResource = ((ChunkStore) commandBuffer.getExternalData())
-                .getWorld().getEntityStore().getStore().getResource(WorldTimeResource.getResourceType());
+            // Most ticking sections hold no flags: reject them with one lookup
+            FlagSectionIndex.Section flags = PickleFlagPlugin.get().getFlagManager()
+                .getRegistry(world.getName()).getSectionIndex()
+                .get(chunkSection.getX(), chunkSection.getY(), chunkSection.getZ());
+            if (flags == null) {
+                return;
+            }
 
-            // Process each ticking block
-            blockSection.forEachTicking(blockComponentChunk, commandBuffer, chunkSection.getY(),
-                (blockCompChunk, cmdBuffer, localX, localY, localZ, blockId) -> {
+            WorldTimeResource timeResource = world.getEntityStore().getStore()
+                .getResource(WorldTimeResource.getResourceType());
 
-                    Ref blockRef = blockCompChunk.getEntityReference(
-                        ChunkUtil.indexBlockInColumn(localX, localY, localZ));
+            // Other blocks in the section may be due while every flag still sleeps
+            if (!flags.hasDueFlag(timeResource.getGameTime())) {
+                return;
+            }
+            long start = System.nanoTime();
+
+            // Process each ticking block, matching it against the section's flag slots
+            blockSection.forEachTicking(flags, commandBuffer, chunkSection.getY(),
+                (sectionFlags, cmdBuffer, localX, localY, localZ, blockId) -> {
+
+                    int slot = ChunkUtil.indexBlock(localX, localY, localZ);
+                    Ref<ChunkStore> blockRef = sectionFlags.getBlockRef(slot);
 
-                    if (blockRef == null) {
+                    if (blockRef == null || !blockRef.isValid()) {
                         return BlockTickStrategy.IGNORED;
                     }
 
@@ -326,21 +604,22 @@ public class PickleFlagPlugin extends JavaPlugin {
                         int worldZ = ChunkUtil.worldCoordFromLocalCoord(chunkSection.getZ(), localZ);
 
                         // Call tick handler
-                        flagBlock.onTick(worldX, worldY, worldZ,
-                            ((ChunkStore) commandBuffer.getExternalData()).getWorld());
+                        flagBlock.onTick(worldX, worldY, worldZ, world);
 
                         // Schedule next tick
                         var nextTick = flagBlock.getNextScheduledTick(timeResource);
                         if (nextTick != null) {
-                            blockSection.scheduleTick(
-                                ChunkUtil.indexBlock(localX, localY, localZ), nextTick);
+                            blockSection.scheduleTick(slot, nextTick);
                         }
+                        sectionFlags.scheduled(slot, nextTick);
 
                         return BlockTickStrategy.SLEEP;
                     }
 
                     return BlockTickStrategy.IGNORED;
                 });
+
+            PickleFlagPlugin.get().getFlagManager().getMetrics().recordSectionTick(System.nanoTime() - start);
         }
 
         @NullableDecl
@@ -393,7 +672,74 @@ public class PickleFlagPlugin extends JavaPlugin {
             Player player = store.getComponent(ref, Player.getComponentType());
             assert player != null;
 
+            // Stop counting the player towards flag presence in this world, and drop unsent notices
+            PlayerFlagData playerData = store.getComponent(ref, PlayerFlagData.getComponentType());
+            if (playerData != null) {
+                FlagDiscovery.leave(playerData.getDiscoveryState());
+                playerData.getDiscoveryNotices().clear();
+            }
+
             PickleFlagPlugin.get().getFlagManager().removePlayerFlagData(player.getUuid());
         }
     }
+
+    /**
+     * System that checks each player for nearby undiscovered flags.
+     * Candidates are only re-collected when the player crosses a chunk boundary.
+     * Presence tracking stays on the world thread; the proximity checks are
+     * handed to the FlagDiscoveryScheduler when there is one. Discoveries are
+     * announced through the player's FlagDiscoveryNotices, a summary at a time.
+     */
+    public static class FlagDiscoverySystem extends EntityTickingSystem<EntityStore> {
+
+        @Nonnull
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.and(
+                Player.getComponentType(),
+                PlayerFlagData.getComponentType(),
+                TransformComponent.getComponentType()
+            );
+        }
+
+        @Override
+        public void tick(float dt, int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+                         @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer) {
+
+            Player player = archetypeChunk.getComponent(index, Player.getComponentType());
+            PlayerFlagData playerData = archetypeChunk.getComponent(index, PlayerFlagData.getComponentType());
+            TransformComponent transform = archetypeChunk.getComponent(index, TransformComponent.getComponentType());
+            assert player != null && playerData != null && transform != null;
+
+            World world = ((EntityStore) store.getExternalData()).getWorld();
+            PickleFlagPlugin plugin = PickleFlagPlugin.get();
+            FlagRegistry registry = plugin.getFlagManager().getRegistry(world.getName());
+
+            Vector3d position = transform.getPosition();
+            FlagDiscoveryScheduler scheduler = plugin.getDiscoveryScheduler();
+            boolean enteredChunk;
+            if (scheduler != null) {
+                enteredChunk = FlagDiscovery.enter(playerData.getDiscoveryState(), registry,
+                    position.getX(), position.getZ());
+                scheduler.probe(world, registry, archetypeChunk.getReferenceTo(index), playerData,
+                    position.getX(), position.getY(), position.getZ());
+            } else {
+                enteredChunk = FlagDiscovery.update(playerData.getDiscoveryState(), registry, playerData,
+                    position.getX(), position.getY(), position.getZ(),
+                    flag -> plugin.announceDiscovery(playerData, flag));
+            }
+
+            // Announce this player's discoveries once their coalescing window has passed
+            if (playerData.getDiscoveryNotices().flush(player, System.nanoTime()) > 0) {
+                plugin.getFlagManager().getMetrics().recordDiscoveryNotice();
+            }
+
+            // Wake dormant flags around the chunk the player just walked into
+            if (enteredChunk) {
+                registry.getDormancy().wakeNear(world, registry.snapshot(),
+                    FlagSpatialIndex.chunkCoordinate((int) Math.floor(position.getX())),
+                    FlagSpatialIndex.chunkCoordinate((int) Math.floor(position.getZ())));
+            }
+        }
+    }
 }
@@ -9,12 +9,13 @@ import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 import com.hypixel.hytale.component.Component;
 import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.nio.LongBuffer;
+import java.util.BitSet;
+import java.util.UUID;
 
 /**
  * Component attached to players to track which Pickle Pirate Flags they have discovered.
@@ -24,26 +25,61 @@ import java.util.Set;
  * - Triggering discovery events only once per player per flag
  * - Persisting discovery state across sessions
  *
- * The data is serialized as an array of flag UUIDs (strings).
+ * In memory, discoveries are a bitset indexed by flag handle (see FlagIds).
+ * The bitset is saved as-is: the ID of the on-disk ordinal table followed by
+ * the bitset words, about one bit per flag instead of a 36 character string.
+ * Records written by older versions (the "DiscoveredFlags" UUID string array)
+ * are still read and are rewritten in the compact form on the next save.
+ * If the ordinal table is not persisted, the string array is written instead.
+ * A bitset saved against a different table cannot be read; it is kept as
+ * saved and written back unchanged, and the player's discoveries are saved
+ * as strings alongside it, so an undecodable record is never overwritten.
+ *
+ * clone() shares the bitset with the copy; whichever side changes first
+ * copies it, so saving a player does not copy their discoveries.
  */
 public class PlayerFlagData implements Component<EntityStore> {
 
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    // Leading longs of the saved bitset holding the ordinal table ID
+    private static final int TABLE_ID_LONGS = 2;
+
     /**
      * Codec for serializing/deserializing this component.
-     * Stores the set of discovered flag IDs as a string array.
+     * Stores discoveries as a bitset over the ordinal table, or as a string
+     * array of flag IDs when the table is not persisted. Either key may be
+     * absent; both are read so old records migrate transparently.
      */
     @Nonnull
     public static final BuilderCodec<PlayerFlagData> CODEC = BuilderCodec
         .builder(PlayerFlagData.class, PlayerFlagData::new)
         .append(
-            new KeyedCodec<>("DiscoveredFlags", BuilderCodec.STRING_ARRAY),
-            (data, ids) -> data.discoveredFlags = new HashSet<>(Arrays.asList(ids)),
-            data -> data.discoveredFlags.toArray(new String[0])
+            new KeyedCodec<>("DiscoveredFlagBits", Codec.LONG_ARRAY, false),  // false = optional
+            PlayerFlagData::decodeDiscoveredBits,
+            PlayerFlagData::encodeDiscoveredBits
+        ).add()
+        .append(
+            new KeyedCodec<>("DiscoveredFlags", BuilderCodec.STRING_ARRAY, false),  // false = optional
+            PlayerFlagData::decodeDiscoveredFlags,
+            PlayerFlagData::encodeDiscoveredFlags
         ).add()
         .build();
 
-    // Set of flag UUIDs that this player has discovered
-    private Set<String> discoveredFlags = new HashSet<>();
+    // Handles of the flags this player has discovered
+    private BitSet discoveredFlags = new BitSet();
+
+    // True while discoveredFlags is also referenced by a clone (copy before writing)
+    private boolean shared;
+
+    // Saved bitset that could not be read against the current ordinal table (written back as-is)
+    private long[] undecodedBits;
+
+    // Proximity discovery state (runtime only, not serialized)
+    private final FlagDiscovery.State discoveryState = new FlagDiscovery.State();
+
+    // Discoveries not yet announced to the player (runtime only, not serialized)
+    private final FlagDiscoveryNotices discoveryNotices = new FlagDiscoveryNotices();
 
     /**
      * Default constructor (required for CODEC).
@@ -63,27 +99,61 @@ public class PlayerFlagData implements Component<EntityStore> {
     /**
      * Check if this player has discovered a specific flag.
      *
-     * @param flagId The UUID of the flag to check
+     * @param flagHandle Handle of the flag to check
      * @return true if discovered, false otherwise
      */
-    public boolean hasDiscoveredFlag(@Nonnull String flagId) {
-        return this.discoveredFlags.contains(flagId);
+    public boolean hasDiscoveredFlag(int flagHandle) {
+        return this.discoveredFlags.get(flagHandle);
     }
 
     /**
      * Mark a flag as discovered by this player.
      *
-     * @param flagId The UUID of the flag to mark as discovered
+     * @param flagHandle Handle of the flag to mark as discovered
      */
-    public void addDiscoveredFlag(@Nonnull String flagId) {
-        this.discoveredFlags.add(flagId);
+    public void addDiscoveredFlag(int flagHandle) {
+        if (this.shared) {
+            this.discoveredFlags = (BitSet) this.discoveredFlags.clone();
+            this.shared = false;
+        }
+        this.discoveredFlags.set(flagHandle);
+    }
+
+    /**
+     * Get this player's discoveries as of now, for reading on another thread.
+     *
+     * The returned set is shared with this component until its next write,
+     * which copies it first, so it never changes under the reader. Callers
+     * must not modify it.
+     *
+     * @return Set of discovered flag handles
+     */
+    public BitSet getDiscoveredFlagsView() {
+        this.shared = true;
+        return this.discoveredFlags;
+    }
+
+    /**
+     * Get the runtime proximity discovery state for this player.
+     */
+    @Nonnull
+    public FlagDiscovery.State getDiscoveryState() {
+        return this.discoveryState;
+    }
+
+    /**
+     * Get the discoveries waiting to be announced to this player.
+     */
+    @Nonnull
+    public FlagDiscoveryNotices getDiscoveryNotices() {
+        return this.discoveryNotices;
     }
 
     /**
      * Get the total number of flags this player has discovered.
      */
     public int getDiscoveredCount() {
-        return this.discoveredFlags.size();
+        return this.discoveredFlags.cardinality();
     }
 
     /**
@@ -93,7 +163,10 @@ public class PlayerFlagData implements Component<EntityStore> {
     @Override
     public PlayerFlagData clone() {
         PlayerFlagData copy = new PlayerFlagData();
-        copy.discoveredFlags.addAll(this.discoveredFlags);
+        copy.discoveredFlags = this.discoveredFlags;
+        copy.undecodedBits = this.undecodedBits;
+        copy.shared = true;
+        this.shared = true;
         return copy;
     }
 
@@ -101,6 +174,106 @@ public class PlayerFlagData implements Component<EntityStore> {
      * Reset all discovered flags (for testing/debugging).
      */
     public void reset() {
-        this.discoveredFlags.clear();
+        this.discoveredFlags = new BitSet();
+        this.shared = false;
+        this.undecodedBits = null;
+        this.discoveryState.invalidate();
+    }
+
+    // ==================== Codec ====================
+
+    private static void decodeDiscoveredBits(PlayerFlagData data, long[] saved) {
+        readSavedBits(data, saved, pluginFlagIds());
+    }
+
+    private static long[] encodeDiscoveredBits(PlayerFlagData data) {
+        FlagIds flagIds = pluginFlagIds();
+        return flagIds.getTableId() != null ? toSavedBits(data, flagIds) : null;
+    }
+
+    private static void decodeDiscoveredFlags(PlayerFlagData data, String[] ids) {
+        readSavedIds(data, ids, pluginFlagIds());
+    }
+
+    private static String[] encodeDiscoveredFlags(PlayerFlagData data) {
+        FlagIds flagIds = pluginFlagIds();
+        return data.undecodedBits != null || flagIds.getTableId() == null ? toSavedIds(data, flagIds) : null;
+    }
+
+    private static FlagIds pluginFlagIds() {
+        return PickleFlagPlugin.get().getFlagManager().getFlagIds();
+    }
+
+    /**
+     * Load discoveries from a saved bitset. The bits are only meaningful for
+     * the ordinal table they were written against; a bitset for any other table
+     * is kept unread so toSavedBits() can write it back unchanged.
+     */
+    static void readSavedBits(PlayerFlagData data, long[] saved, FlagIds flagIds) {
+        UUID tableId = flagIds.getTableId();
+        if (saved == null || saved.length < TABLE_ID_LONGS) {
+            return;
+        }
+        if (tableId == null || saved[0] != tableId.getMostSignificantBits()
+            || saved[1] != tableId.getLeastSignificantBits()) {
+            LOGGER.atWarning().log("Keeping discovered flags saved against another flag ordinal table unread");
+            data.undecodedBits = saved;
+            return;
+        }
+        data.discoveredFlags.or(BitSet.valueOf(
+            LongBuffer.wrap(saved, TABLE_ID_LONGS, saved.length - TABLE_ID_LONGS)));
+    }
+
+    /**
+     * Save discoveries as the ordinal table ID followed by the bitset words.
+     * Forces the ordinal table first so every saved bit is backed on disk.
+     *
+     * @return The saved bitset; the one read at load if it could not be decoded;
+     *         or null if the table is not persisted (discoveries go in the string array)
+     */
+    static long[] toSavedBits(PlayerFlagData data, FlagIds flagIds) {
+        if (data.undecodedBits != null) {
+            return data.undecodedBits;
+        }
+        if (!flagIds.sync()) {
+            return null;
+        }
+        UUID tableId = flagIds.getTableId();
+        long[] words = data.discoveredFlags.toLongArray();
+        long[] saved = new long[TABLE_ID_LONGS + words.length];
+        saved[0] = tableId.getMostSignificantBits();
+        saved[1] = tableId.getLeastSignificantBits();
+        System.arraycopy(words, 0, saved, TABLE_ID_LONGS, words.length);
+        return saved;
+    }
+
+    /**
+     * Load discoveries from their saved UUID strings, skipping malformed entries.
+     * Used for records from older versions and when the ordinal table is not persisted.
+     */
+    static void readSavedIds(PlayerFlagData data, String[] ids, FlagIds flagIds) {
+        if (ids == null) {
+            return;
+        }
+        for (String id : ids) {
+            try {
+                data.discoveredFlags.set(flagIds.intern(UUID.fromString(id)));
+            } catch (IllegalArgumentException e) {
+                // Ignore corrupt entries rather than failing the whole player load
+            }
+        }
+    }
+
+    /**
+     * Convert discoveries to UUID strings for saving.
+     */
+    static String[] toSavedIds(PlayerFlagData data, FlagIds flagIds) {
+        String[] ids = new String[data.discoveredFlags.cardinality()];
+        int i = 0;
+        for (int handle = data.discoveredFlags.nextSetBit(0); handle >= 0;
+             handle = data.discoveredFlags.nextSetBit(handle + 1)) {
+            ids[i++] = flagIds.toString(handle);
+        }
+        return ids;
     }
 }